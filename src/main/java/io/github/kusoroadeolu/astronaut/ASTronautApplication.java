@@ -1,22 +1,20 @@
 package io.github.kusoroadeolu.astronaut;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.kusoroadeolu.astronaut.entities.SnippetIndex;
+import io.github.kusoroadeolu.astronaut.services.IndexFileService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.stereotype.Component;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.concurrent.StructuredTaskScope;
 
 @EnableAsync
 @EnableScheduling
@@ -28,22 +26,67 @@ public class ASTronautApplication {
       SpringApplication.run(ASTronautApplication.class, args);
     }
 
+    /**
+     * Hydrates the cache in the background so the HTTP port opens straight away.
+     * </br>Snapshot chunks are cached in parallel as they're streamed in, after which snippets can be read and changed
+     * ({@link SnippetCache.Readiness#INDEXING}). The search index is then built in parallel slices and searches are served once
+     * it's done ({@link SnippetCache.Readiness#READY}). Requests that need more than what's ready get a 503.
+     */
     @Component
     @RequiredArgsConstructor
+    @Slf4j
     public static class SnippetCacheLoader implements ApplicationRunner {
 
         private final SnippetCache cache;
-        private final ObjectMapper mapper;
-
-        @Value("${index.file-path}")
-        private String indexPath;
+        private final ContentStore contentStore;
+        private final IndexFileService indexFileService;
+        private final ConfigurableApplicationContext context;
 
         @Override
-        public void run(ApplicationArguments args) throws Exception {
-            Path p  = Path.of(indexPath);
-            List<SnippetIndex> snippets = mapper.readValue(Files.newInputStream(p, StandardOpenOption.READ), new TypeReference<>(){});
-            cache.addAll(snippets == null ? List.of() : snippets);
+        public void run(ApplicationArguments args) {
+            Thread.ofPlatform().name("index-loader").start(() -> {
+                try {
+                    load();
+                } catch (Exception e) {
+                    //Serving without the persisted snippets would overwrite them on the next compaction
+                    log.error("Failed to load the index, shutting down", e);
+                    System.exit(SpringApplication.exit(context, () -> 1));
+                }
+            });
+        }
+
+        public void load() throws InterruptedException {
+            long start = System.nanoTime();
+            try (var scope = StructuredTaskScope.open()) {
+                indexFileService.load(chunk -> {
+                    scope.fork(() -> {
+                        cache.load(chunk);
+                    });
+                });
+                scope.join();
+            }
+            //Every persisted reference is taken now, whatever is left over in the content store is garbage
+            contentStore.registerUnreferenced();
+            contentStore.reencodeRetired();
+            cache.setReadiness(SnippetCache.Readiness.INDEXING);
+            long loaded = System.nanoTime();
+            //Converts the snapshot if a new format was selected
+            indexFileService.compact();
 
+            List<String> ids = cache.values().stream().map(SnippetIndex::getId).toList();
+            int slices = Runtime.getRuntime().availableProcessors() * 4;
+            int sliceSize = Math.max(1, Math.ceilDiv(ids.size(), slices));
+            try (var scope = StructuredTaskScope.open()) {
+                for (int i = 0; i < ids.size(); i += sliceSize) {
+                    List<String> slice = ids.subList(i, Math.min(i + sliceSize, ids.size()));
+                    scope.fork(() -> {
+                        slice.forEach(cache::index);
+                    });
+                }
+                scope.join();
+            }
+            cache.setReadiness(SnippetCache.Readiness.READY);
+            log.info("Cached {} snippets in {} ms, indexed them in {} ms", ids.size(), (loaded - start) / 1_000_000, (System.nanoTime() - loaded) / 1_000_000);
         }
     }
 
@@ -1,34 +1,23 @@
 package io.github.kusoroadeolu.astronaut;
 
-import io.github.kusoroadeolu.astronaut.exceptions.IndexPersistenceException;
+import io.github.kusoroadeolu.astronaut.compression.Codecs;
 
-import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 import java.util.HexFormat;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 public class CompressionUtils {
 
+    //Compressed with the default codec, see Codecs
     public static byte[] compress(String content) {
-        var outputStream = new ByteArrayOutputStream();
-        try (var gzip = new GZIPOutputStream(outputStream)) {
-            gzip.write(content.getBytes(StandardCharsets.UTF_8));
-        }  catch (IOException e) {
-            throw new IndexPersistenceException("Failed to compress content to index file", e);
-        }
-        return outputStream.toByteArray();
+        return Codecs.defaultCodec().encode(content.getBytes(StandardCharsets.UTF_8));
     }
 
+    //Decompresses content written by any codec, including gzip from before codecs existed
     public static String decompress(byte[] compressed)  {
-        try (var gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
-            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            throw new IndexPersistenceException("Failed to decompress content from index file", e);
-        }
+        return new String(Codecs.decode(compressed), StandardCharsets.UTF_8);
     }
 
     public static String compressToBase64(String content) {
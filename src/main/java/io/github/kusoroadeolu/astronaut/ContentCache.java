@@ -0,0 +1,81 @@
+package io.github.kusoroadeolu.astronaut;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * LRU cache of decompressed snippet content, bounded by the memory the content takes rather than by a number of entries.
+ * </br>Keyed by content hash, so an entry can never go stale, changed content has a new hash and the old entry just ages out.
+ * Content is weighed at 2 bytes per char, the worst case for a String. Content larger than the whole budget isn't cached.
+ */
+public class ContentCache {
+    private final Map<String, String> entries;
+    private final long maxBytes;
+    private long bytes;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+
+    /**
+     * @param maxBytes the max weight of every cached content combined
+     */
+    public ContentCache(long maxBytes) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.maxBytes = maxBytes;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+    }
+
+    /**
+     * @param hash the content hash
+     * @param loader decompresses the content on a miss, runs outside the cache's lock
+     * @return the content, null if the loader returned null, which isn't cached
+     */
+    public String get(String hash, Supplier<String> loader) {
+        if (hash == null) return loader.get();
+        String content;
+        synchronized (entries) {
+            content = entries.get(hash);
+        }
+        if (content != null) {
+            hits.increment();
+            return content;
+        }
+
+        misses.increment();
+        content = loader.get();
+        if (content == null || weigh(content) > maxBytes) return content;
+        synchronized (entries) {
+            String previous = entries.put(hash, content);
+            bytes += weigh(content) - (previous == null ? 0 : weigh(previous));
+            evict();
+        }
+        return content;
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size(), bytes);
+        }
+    }
+
+    //Drops the least recently used entries until the cache is back within its budget
+    private void evict() {
+        Iterator<String> eldest = entries.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= weigh(eldest.next());
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private static long weigh(String content) {
+        return 2L * content.length();
+    }
+
+    public record Stats(long hits, long misses, long evictions, int entries, long bytes) {}
+}
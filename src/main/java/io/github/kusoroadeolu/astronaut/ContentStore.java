@@ -0,0 +1,214 @@
+package io.github.kusoroadeolu.astronaut;
+
+import io.github.kusoroadeolu.astronaut.compression.BlobReencoder;
+import io.github.kusoroadeolu.astronaut.exceptions.IndexPersistenceException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed storage for snippet content, one compressed blob file per SHA-256 content hash, kept apart from the metadata index.
+ * </br>Snippets sharing the same content (identical gists, forks) share one blob. Each blob is reference counted by the snippet IDs
+ * pointing at it, a blob nobody points at anymore is only deleted by {@link #sweep(Map)}, once the metadata that dropped it is durable.
+ * Blobs are laid out like git objects, {@code <dir>/<first 2 hash chars>/<rest of the hash>}.
+ */
+@Slf4j
+public class ContentStore {
+
+    private static final Pattern SHA_256 = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path dir;
+    private final Map<String, String> owners; //Snippet ID -> the content hash it points at
+    private final Map<String, Integer> references;
+    private final Map<String, Long> orphans; //Unreferenced hash -> when it lost its last reference
+    private long releases;
+
+    public ContentStore(Path dir) {
+        this.dir = dir;
+        this.owners = new HashMap<>();
+        this.references = new HashMap<>();
+        this.orphans = new HashMap<>();
+    }
+
+    /**
+     * Points the snippet at the blob, releasing whatever blob it pointed at before, then writes the blob unless one with the same hash
+     * is already stored. The reference is taken first so a concurrent sweep can't delete the blob between the check and the reference.
+     * @param id the snippet's ID
+     * @param hash the SHA-256 of the uncompressed content
+     * @param compressed the compressed content, null to only take the reference to an existing blob
+     */
+    public void store(String id, String hash, byte[] compressed) {
+        String previous = assign(id, hash);
+        if (compressed == null) return;
+        try {
+            put(hash, compressed);
+        } catch (RuntimeException e) {
+            if (previous == null) unassign(id);
+            else assign(id, previous);
+            throw e;
+        }
+    }
+
+    //New blobs are fsynced and renamed into place, so a blob that exists is always complete
+    private void put(String hash, byte[] compressed) {
+        Path path = pathOf(hash);
+        if (Files.exists(path)) return;
+        Path temp = null;
+        try {
+            Files.createDirectories(path.getParent());
+            //Unique per writer, concurrent writers of the same hash would otherwise move each other's temp file away
+            temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(compressed);
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                //Another writer got there first, the blob is the same content either way
+                if (!Files.exists(path)) throw e;
+            }
+        } catch (IOException e) {
+            log.error("An ex occurred while writing blob {}", hash, e);
+            throw new IndexPersistenceException("Failed to store snippet content", e);
+        } finally {
+            deleteTemp(temp);
+        }
+    }
+
+    private void deleteTemp(Path temp) {
+        if (temp == null) return;
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            log.warn("Failed to delete temp blob {}", temp, e);
+        }
+    }
+
+    /**
+     * @param hash the content hash
+     * @return the compressed content, null if there's no blob with the hash
+     */
+    public byte[] read(String hash) {
+        if (hash == null) return null;
+        try {
+            return Files.readAllBytes(pathOf(hash));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.error("An ex occurred while reading blob {}", hash, e);
+            throw new IndexPersistenceException("Failed to read snippet content", e);
+        }
+    }
+
+    private synchronized String assign(String id, String hash) {
+        String previous = owners.put(id, hash);
+        if (hash.equals(previous)) return previous;
+        references.merge(hash, 1, Integer::sum);
+        orphans.remove(hash);
+        if (previous != null) release(previous);
+        return previous;
+    }
+
+    public synchronized void unassign(String id) {
+        String previous = owners.remove(id);
+        if (previous != null) release(previous);
+    }
+
+    //The blobs nobody points at right now, pass them to sweep once the metadata without them is durable
+    public synchronized Map<String, Long> orphans() {
+        return new HashMap<>(orphans);
+    }
+
+    /**
+     * Deletes the blobs that are still unreferenced since {@link #orphans()} returned them. A blob that was referenced again in between,
+     * even if it lost that reference too, is kept until the next sweep since the durable metadata may point at it.
+     * @param orphans what {@link #orphans()} returned before the metadata was made durable
+     */
+    public void sweep(Map<String, Long> orphans) {
+        for (Map.Entry<String, Long> orphan : orphans.entrySet()) {
+            String hash = orphan.getKey();
+            //Deleted under the lock, so store() either takes its reference first or writes the blob again after
+            synchronized (this) {
+                if (!orphan.getValue().equals(this.orphans.get(hash))) continue;
+                this.orphans.remove(hash);
+                try {
+                    Files.deleteIfExists(pathOf(hash));
+                } catch (IOException e) {
+                    log.warn("Failed to delete unreferenced blob {}", hash, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Registers every stored blob nobody points at as an orphan, so the next {@link #sweep(Map)} deletes it. Called once every persisted
+     * snippet is loaded, a blob only the snapshot entries a log record superseded pointed at is never referenced, so it's never released either.
+     * @return the number of blobs registered
+     */
+    public int registerUnreferenced() {
+        if (!Files.isDirectory(dir)) return 0;
+        int registered = 0;
+        try (Stream<Path> paths = Files.walk(dir, 2)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (path.getParent() == null || path.getParent().equals(dir)) continue;
+                String hash = path.getParent().getFileName().toString() + path.getFileName();
+                //Temp files and anything else that isn't a blob don't match
+                if (!SHA_256.matcher(hash).matches()) continue;
+                synchronized (this) {
+                    if (references.containsKey(hash) || orphans.containsKey(hash)) continue;
+                    orphans.put(hash, ++releases);
+                    registered++;
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to list the blobs in {}, unreferenced ones are kept until the next start", dir, e);
+        }
+        if (registered > 0) log.info("Found {} unreferenced blobs, they're deleted by the next compaction", registered);
+        return registered;
+    }
+
+    /**
+     * Re-encodes the blobs written with a retired compression dictionary, see {@link BlobReencoder#reencodeRetired(Path)}.
+     * Run at startup before anything else writes to the store, a failure only leaves those blobs in their old encoding.
+     */
+    public void reencodeRetired() {
+        try {
+            int reencoded = BlobReencoder.reencodeRetired(dir);
+            if (reencoded > 0) log.info("Re-encoded {} blobs written with a retired compression dictionary", reencoded);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to re-encode the blobs in {} written with a retired compression dictionary", dir, e);
+        }
+    }
+
+    public synchronized void clear() {
+        owners.clear();
+        references.clear();
+        orphans.clear();
+    }
+
+    private void release(String hash) {
+        if (references.merge(hash, -1, Integer::sum) <= 0) {
+            references.remove(hash);
+            orphans.put(hash, ++releases);
+        }
+    }
+
+    private Path pathOf(String hash) {
+        if (!SHA_256.matcher(hash).matches()) throw new IndexPersistenceException("Invalid content hash: %s".formatted(hash), null);
+        return dir.resolve(hash.substring(0, 2)).resolve(hash.substring(2));
+    }
+}
@@ -1,6 +1,9 @@
 package io.github.kusoroadeolu.astronaut;
 
 import io.github.kusoroadeolu.astronaut.entities.SnippetIndex;
+import io.github.kusoroadeolu.astronaut.exceptions.IndexNotReadyException;
+import io.github.kusoroadeolu.astronaut.exceptions.SnippetContentMissingException;
+import io.github.kusoroadeolu.astronaut.search.SnippetSearchIndex;
 import lombok.extern.slf4j.Slf4j;
 import org.jspecify.annotations.NonNull;
 
@@ -9,18 +12,81 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 public class SnippetCache {
     private final Map<String, SnippetIndex> snippets;
+    private final SnippetSearchIndex searchIndex;
+    private final ContentStore contentStore;
+    private final ContentCache contentCache;
+    private final AtomicLong version;
+    private volatile Readiness readiness;
 
-    public SnippetCache() {
+    public SnippetCache(SnippetSearchIndex searchIndex, ContentStore contentStore, ContentCache contentCache) {
         this.snippets = new ConcurrentHashMap<>();
+        this.searchIndex = searchIndex;
+        this.contentStore = contentStore;
+        this.contentCache = contentCache;
+        this.version = new AtomicLong();
+        this.readiness = Readiness.LOADING;
     }
 
+    //Also re-indexes the snippet, so callers that mutate a cached snippet should add it back
+    //Inline content is moved to the content store, only the metadata stays cached
+    //The blob write and the content-derived terms are done up front, only the swap runs inside compute where it holds the map's bin lock
     public void add(@NonNull SnippetIndex s) {
-        snippets.put(Objects.requireNonNull(s).getId(), s);
+        String hash = Objects.requireNonNull(s).getContentHash();
+        byte[] inline = s.getCompressedContent();
+        if (hash != null) contentStore.store(s.getId(), hash, inline);
+        SnippetSearchIndex.Prepared prepared = prepare(s);
+        snippets.compute(s.getId(), (_, _) -> {
+            //Only takes the reference again, a remove that ran since the store released it
+            if (hash != null) contentStore.store(s.getId(), hash, null);
+            index(prepared);
+            return s;
+        });
+    }
+
+    /**
+     * Caches the snippets without indexing them, their content is stored but stays inline until {@link #index(String)} indexes it.
+     * Used to serve metadata while the search index is still being built at startup.
+     * @param s the snippets to cache
+     */
+    public void load(@NonNull Collection<SnippetIndex> s) {
+        for (SnippetIndex snippet : s) {
+            String hash = snippet.getContentHash();
+            if (hash != null) contentStore.store(snippet.getId(), hash, snippet.getCompressedContent());
+            snippets.compute(snippet.getId(), (_, _) -> {
+                if (hash != null) contentStore.store(snippet.getId(), hash, null);
+                version.incrementAndGet();
+                return snippet;
+            });
+        }
+    }
+
+    //Indexes a snippet cached by load, skipped if it was removed since or replaced by an add, which indexed it already
+    public void index(String id) {
+        SnippetIndex cached = snippets.get(id);
+        if (cached == null) return;
+        SnippetSearchIndex.Prepared prepared = prepare(cached);
+        snippets.computeIfPresent(id, (_, s) -> {
+            if (s == cached) index(prepared);
+            return s;
+        });
+    }
+
+    private SnippetSearchIndex.Prepared prepare(SnippetIndex s) {
+        String hash = s.getContentHash();
+        byte[] inline = s.getCompressedContent();
+        return searchIndex.prepare(s, () -> inline != null ? inline : contentStore.read(hash));
+    }
+
+    private void index(SnippetSearchIndex.Prepared prepared) {
+        SnippetIndex s = prepared.snippet();
+        searchIndex.index(prepared);
+        if (s.getContentHash() != null) s.setContent(null);
+        version.incrementAndGet();
     }
 
     public SnippetIndex get(String id) {
@@ -28,23 +94,80 @@ public class SnippetCache {
     }
 
     public boolean remove(String id) {
-        return snippets.remove(id) != null;
+        boolean[] removed = new boolean[1];
+        snippets.computeIfPresent(id, (_, _) -> {
+            searchIndex.remove(id);
+            contentStore.unassign(id);
+            version.incrementAndGet();
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
     }
 
     public void addAll(@NonNull Collection<SnippetIndex> s) {
-        Map<String, SnippetIndex> map = s.stream()
-                .collect(Collectors.toMap(SnippetIndex::getId, si -> si));
-        snippets.putAll(map);
+        s.forEach(this::add);
     }
 
     public List<SnippetIndex> values(){
         return snippets.values().stream().toList();
     }
 
+    /**
+     * @param s a cached snippet
+     * @return the snippet's decompressed content, from the content cache or else read from the content store, unless it's still inline
+     * @throws SnippetContentMissingException if the snippet's blob isn't in the content store
+     */
+    public String contentOf(@NonNull SnippetIndex s) {
+        byte[] inline = s.getCompressedContent();
+        if (inline != null) return CompressionUtils.decompress(inline);
+        String hash = s.getContentHash();
+        return contentCache.get(hash, () -> {
+            byte[] compressed = contentStore.read(hash);
+            if (compressed == null) throw new SnippetContentMissingException("The content of snippet %s is missing".formatted(s.getId()));
+            return CompressionUtils.decompress(compressed);
+        });
+    }
+
+    //Hit, miss and eviction counts of the decompressed content cache since startup
+    public ContentCache.Stats contentCacheStats() {
+        return contentCache.stats();
+    }
+
+    //Bumped after every change to the cached snippets, anything derived from them is stale once this moves
+    public long version() {
+        return version.get();
+    }
+
+
 
+    public Readiness readiness() {
+        return readiness;
+    }
+
+    public void setReadiness(Readiness readiness) {
+        this.readiness = readiness;
+        log.info("Snippet cache is {}", readiness);
+    }
+
+    /**
+     * @param required the least the caller needs, {@link Readiness#INDEXING} to read or change snippets and {@link Readiness#READY} to search them
+     * @throws IndexNotReadyException if the cache hasn't got that far yet
+     */
+    public void requireReadiness(Readiness required) {
+        if (readiness.compareTo(required) < 0) throw new IndexNotReadyException("Snippets are still loading, please try again shortly");
+    }
 
     public void shutdown() {
         snippets.clear();
+        searchIndex.clear();
+        contentStore.clear();
+        version.incrementAndGet();
     }
 
+    /**
+     * How far startup has got. While {@link #LOADING} the snapshot is still being read, while {@link #INDEXING} every snippet is cached and
+     * can be read or changed but the search index is still being built, once {@link #READY} everything is served.
+     */
+    public enum Readiness { LOADING, INDEXING, READY }
 }
@@ -0,0 +1,90 @@
+package io.github.kusoroadeolu.astronaut.compression;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Re-encodes every blob in a content store directory (see {@link io.github.kusoroadeolu.astronaut.ContentStore}) that wasn't written
+ * with the current {@link Codecs#defaultCodec()}, so a retired dictionary can be dropped from {@value Codecs#DICTIONARY_LIST}.
+ * </br>Blobs are addressed by the hash of their uncompressed content, so each is rewritten in place, through a temp file that's
+ * fsynced and renamed over it like the store does. Run {@link #main(String[])} with the content store directory while the app is stopped.
+ * </br>The app itself runs {@link #reencodeRetired(Path)} at startup, which only rewrites the blobs a retired dictionary wrote.
+ */
+public final class BlobReencoder {
+
+    private BlobReencoder() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: BlobReencoder <content store directory>");
+            System.exit(1);
+        }
+
+        ContentCodec current = Codecs.defaultCodec();
+        int reencoded = 0, total = 0;
+        try (Stream<Path> paths = Files.walk(Path.of(args[0]))) {
+            List<Path> blobs = paths.filter(Files::isRegularFile).filter(p -> !p.getFileName().toString().endsWith(".tmp")).toList();
+            for (Path blob : blobs) {
+                total++;
+                byte[] encoded = Files.readAllBytes(blob);
+                if (Codecs.codecOf(encoded) == current) continue;
+                replace(blob, current.encode(Codecs.decode(encoded)));
+                reencoded++;
+            }
+        }
+        System.out.printf("Re-encoded %d of %d blobs with %s%n", reencoded, total, current);
+    }
+
+    /**
+     * Re-encodes the blobs written with a retired dictionary with the current codec, only reading the header of the rest.
+     * @param dir the content store directory
+     * @return the number of blobs re-encoded
+     */
+    public static int reencodeRetired(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return 0;
+        ContentCodec current = Codecs.defaultCodec();
+        int reencoded = 0;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            List<Path> blobs = paths.filter(Files::isRegularFile).filter(p -> !p.getFileName().toString().endsWith(".tmp")).toList();
+            for (Path blob : blobs) {
+                if (!Codecs.isRetired(header(blob))) continue;
+                replace(blob, current.encode(Codecs.decode(Files.readAllBytes(blob))));
+                reencoded++;
+            }
+        }
+        return reencoded;
+    }
+
+    //The tag, uncompressed length and dictionary ID, fewer bytes if the blob is shorter
+    private static byte[] header(Path blob) throws IOException {
+        try (FileChannel channel = FileChannel.open(blob, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(1 + 2 * Integer.BYTES);
+            while (header.hasRemaining()) {
+                if (channel.read(header) == -1) break;
+            }
+            return Arrays.copyOf(header.array(), header.position());
+        }
+    }
+
+    private static void replace(Path blob, byte[] encoded) throws IOException {
+        Path temp = Files.createTempFile(blob.getParent(), blob.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(encoded);
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(true);
+            }
+            Files.move(temp, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.kusoroadeolu.astronaut.compression;
+
+import io.github.kusoroadeolu.astronaut.exceptions.IndexPersistenceException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The codecs content can be stored with. New content is written with the current dictionary codec when a dictionary is listed in
+ * {@value #DICTIONARY_LIST}, plain deflate otherwise. Anything previously written, including the original gzip content, is decoded by its tag.
+ * </br>The list names dictionary files next to it, one per line. The first one compresses new content, the rest are retired and only
+ * decode content written while they were current, looked up by the dictionary ID in its header. Blobs written with a retired dictionary
+ * are re-encoded at startup (see {@link BlobReencoder#reencodeRetired(java.nio.file.Path)}), so a dictionary can be dropped from the list
+ * one release after it was retired.
+ */
+public final class Codecs {
+
+    static final String DICTIONARY_DIR = "/compression/";
+    static final String DICTIONARY_LIST = DICTIONARY_DIR + "dictionaries.list";
+
+    public static final ContentCodec GZIP = new GzipCodec();
+    public static final ContentCodec DEFLATE = new DeflateCodec(null);
+    private static final List<DeflateCodec> DICTIONARIES = loadDictionaries();
+    private static final Map<Integer, DeflateCodec> DICTIONARIES_BY_ID = byId(DICTIONARIES);
+    public static final ContentCodec DICTIONARY = DICTIONARIES.isEmpty() ? null : DICTIONARIES.getFirst();
+
+    private Codecs() {}
+
+    public static ContentCodec defaultCodec() {
+        return DICTIONARY != null ? DICTIONARY : DEFLATE;
+    }
+
+    public static byte[] decode(byte[] encoded) {
+        return codecOf(encoded).decode(encoded);
+    }
+
+    /**
+     * @param encoded content written by any codec
+     * @return the codec that wrote it
+     */
+    public static ContentCodec codecOf(byte[] encoded) {
+        if (encoded.length == 0) throw new IndexPersistenceException("Failed to decompress empty content", null);
+        return switch (encoded[0]) {
+            case GzipCodec.TAG -> GZIP;
+            case DeflateCodec.PLAIN -> DEFLATE;
+            case DeflateCodec.DICTIONARY -> {
+                int id = DeflateCodec.dictionaryIdOf(encoded);
+                DeflateCodec codec = DICTIONARIES_BY_ID.get(id);
+                if (codec == null) throw new IndexPersistenceException("Content was compressed with dictionary %08x, which isn't listed in %s".formatted(id, DICTIONARY_LIST), null);
+                yield codec;
+            }
+            default -> throw new IndexPersistenceException("Unknown compression codec %d".formatted(encoded[0]), null);
+        };
+    }
+
+    /**
+     * @param encoded content written by any codec, or at least its header
+     * @return whether it was written with a dictionary that's listed but no longer current
+     */
+    public static boolean isRetired(byte[] encoded) {
+        if (encoded.length == 0 || encoded[0] != DeflateCodec.DICTIONARY) return false;
+        return DICTIONARIES.isEmpty() || DeflateCodec.dictionaryIdOf(encoded) != DICTIONARIES.getFirst().dictionaryId();
+    }
+
+    private static List<DeflateCodec> loadDictionaries() {
+        List<DeflateCodec> dictionaries = new ArrayList<>();
+        try (InputStream list = Codecs.class.getResourceAsStream(DICTIONARY_LIST)) {
+            if (list == null) return dictionaries;
+            BufferedReader reader = new BufferedReader(new InputStreamReader(list, StandardCharsets.UTF_8));
+            for (String line; (line = reader.readLine()) != null; ) {
+                String name = line.strip();
+                if (name.isEmpty() || name.startsWith("#")) continue;
+                try (InputStream in = Codecs.class.getResourceAsStream(DICTIONARY_DIR + name)) {
+                    if (in == null) throw new IllegalStateException("Compression dictionary %s is listed but not on the classpath".formatted(name));
+                    dictionaries.add(new DeflateCodec(in.readAllBytes()));
+                }
+            }
+            return dictionaries;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read the compression dictionaries", e);
+        }
+    }
+
+    private static Map<Integer, DeflateCodec> byId(List<DeflateCodec> dictionaries) {
+        Map<Integer, DeflateCodec> byId = new HashMap<>();
+        for (DeflateCodec codec : dictionaries) {
+            if (byId.putIfAbsent(codec.dictionaryId(), codec) != null)
+                throw new IllegalStateException("Two compression dictionaries share the ID %08x".formatted(codec.dictionaryId()));
+        }
+        return byId;
+    }
+}
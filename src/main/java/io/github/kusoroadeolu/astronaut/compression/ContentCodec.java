@@ -0,0 +1,15 @@
+package io.github.kusoroadeolu.astronaut.compression;
+
+/**
+ * Compresses snippet content. Every encoded value starts with the codec's {@link #tag()}, so {@link Codecs#decode(byte[])} can tell
+ * which codec wrote it and content written by an older codec stays readable.
+ */
+public interface ContentCodec {
+
+    //The first byte of everything this codec encodes
+    byte tag();
+
+    byte[] encode(byte[] raw);
+
+    byte[] decode(byte[] encoded);
+}
@@ -0,0 +1,145 @@
+package io.github.kusoroadeolu.astronaut.compression;
+
+import io.github.kusoroadeolu.astronaut.exceptions.IndexPersistenceException;
+
+import java.util.Arrays;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Raw deflate, optionally primed with a preset dictionary.
+ * <pre>
+ * tag (1 byte) | uncompressed length (int) | dictionary ID (int, dictionary codec only) | raw deflate data
+ * </pre>
+ * Snippets are small, so without a dictionary deflate spends most of its output on literals it hasn't seen yet. A dictionary
+ * trained on typical source (see {@link DictionaryTrainer}) gives it common lines and keywords to refer back to from the first byte.
+ * The dictionary ID is the dictionary's Adler-32, {@link Codecs} uses it to pick the dictionary content was written with, and content
+ * written with a different dictionary is rejected rather than corrupted.
+ * </br>Deflaters and inflaters are pooled along with their output buffers, the uncompressed length in the header lets decoding
+ * allocate the result once at its exact size.
+ */
+public final class DeflateCodec implements ContentCodec {
+
+    static final byte PLAIN = 1;
+    static final byte DICTIONARY = 2;
+
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+
+    private final byte[] dictionary;
+    private final int dictionaryId;
+    private final int headerSize;
+    private final Pool<Deflating> deflaters;
+    private final Pool<Inflater> inflaters;
+
+    /**
+     * @param dictionary the preset dictionary, null for plain raw deflate
+     */
+    public DeflateCodec(byte[] dictionary) {
+        this.dictionary = dictionary;
+        this.dictionaryId = dictionary == null ? 0 : adler32(dictionary);
+        this.headerSize = dictionary == null ? 1 + Integer.BYTES : 1 + 2 * Integer.BYTES;
+        this.deflaters = new Pool<>(POOL_SIZE, Deflating::new, d -> d.deflater.end());
+        this.inflaters = new Pool<>(POOL_SIZE, () -> new Inflater(true), Inflater::end);
+    }
+
+    @Override
+    public byte tag() {
+        return dictionary == null ? PLAIN : DICTIONARY;
+    }
+
+    @Override
+    public byte[] encode(byte[] raw) {
+        Deflating d = deflaters.acquire();
+        try {
+            Deflater deflater = d.deflater;
+            if (dictionary != null) deflater.setDictionary(dictionary);
+            deflater.setInput(raw);
+            deflater.finish();
+
+            byte[] out = d.buffer;
+            out[0] = tag();
+            writeInt(out, 1, raw.length);
+            if (dictionary != null) writeInt(out, 1 + Integer.BYTES, dictionaryId);
+            int size = headerSize;
+            while (!deflater.finished()) {
+                if (size == out.length) out = d.buffer = Arrays.copyOf(out, out.length * 2);
+                size += deflater.deflate(out, size, out.length - size);
+            }
+            return Arrays.copyOf(out, size);
+        } finally {
+            d.deflater.reset();
+            if (d.buffer.length > MAX_RETAINED_BUFFER) d.buffer = new byte[BUFFER_SIZE];
+            deflaters.release(d);
+        }
+    }
+
+    @Override
+    public byte[] decode(byte[] encoded) {
+        if (encoded.length < headerSize || encoded[0] != tag()) throw new IndexPersistenceException("Not %s content".formatted(this), null);
+        if (dictionary != null && readInt(encoded, 1 + Integer.BYTES) != dictionaryId)
+            throw new IndexPersistenceException("Content was compressed with an unknown dictionary", null);
+
+        int length = readInt(encoded, 1);
+        if (length < 0) throw new IndexPersistenceException("Corrupt %s content".formatted(this), null);
+        byte[] raw = new byte[length];
+        Inflater inflater = inflaters.acquire();
+        try {
+            inflater.setInput(encoded, headerSize, encoded.length - headerSize);
+            if (dictionary != null) inflater.setDictionary(dictionary);
+            int size = 0;
+            while (size < raw.length) {
+                int read = inflater.inflate(raw, size, raw.length - size);
+                if (read == 0 && (inflater.finished() || inflater.needsInput())) throw new DataFormatException("Truncated content");
+                size += read;
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IndexPersistenceException("Failed to decompress content from index file", e);
+        } finally {
+            inflater.reset();
+            inflaters.release(inflater);
+        }
+    }
+
+    //The Adler-32 of the dictionary, 0 for plain deflate
+    int dictionaryId() {
+        return dictionaryId;
+    }
+
+    //The ID of the dictionary dictionary-codec content was written with
+    static int dictionaryIdOf(byte[] encoded) {
+        if (encoded.length < 1 + 2 * Integer.BYTES || encoded[0] != DICTIONARY) throw new IndexPersistenceException("Not dictionary compressed content", null);
+        return readInt(encoded, 1 + Integer.BYTES);
+    }
+
+    @Override
+    public String toString() {
+        return dictionary == null ? "deflate" : "deflate with dictionary %08x".formatted(dictionaryId);
+    }
+
+    private static int adler32(byte[] bytes) {
+        Adler32 adler = new Adler32();
+        adler.update(bytes);
+        return (int) adler.getValue();
+    }
+
+    private static void writeInt(byte[] b, int offset, int value) {
+        b[offset] = (byte) (value >>> 24);
+        b[offset + 1] = (byte) (value >>> 16);
+        b[offset + 2] = (byte) (value >>> 8);
+        b[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] b, int offset) {
+        return (b[offset] & 0xff) << 24 | (b[offset + 1] & 0xff) << 16 | (b[offset + 2] & 0xff) << 8 | b[offset + 3] & 0xff;
+    }
+
+    private static final class Deflating {
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        private byte[] buffer = new byte[BUFFER_SIZE];
+    }
+}
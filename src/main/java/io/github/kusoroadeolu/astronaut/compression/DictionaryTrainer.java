@@ -0,0 +1,93 @@
+package io.github.kusoroadeolu.astronaut.compression;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Builds a preset dictionary for {@link DeflateCodec} out of sample snippets.
+ * </br>Candidates are the distinct lines and words that appear in at least two samples, a string only one snippet uses says nothing
+ * about the next one. Each is scored by the number of samples it appears in times its length, roughly the bytes it would save
+ * across the corpus. The best are kept up to the size limit, then written best last since deflate encodes nearer matches
+ * in fewer bits. Deflate can't refer back further than 32KB, so a bigger dictionary would be wasted.
+ * </br>Run {@link #main(String[])} with the output path followed by the samples, files or directories of source files or of content
+ * blobs (see {@link io.github.kusoroadeolu.astronaut.ContentStore}). The shipped dictionary is trained on the generic samples in
+ * {@code src/test/resources/dictionary-samples} rather than on anyone's gists, since whatever it's trained on ships inside it.
+ * </br>To replace it, save the new dictionary as {@code <ID>.dict} next to {@value Codecs#DICTIONARY_LIST} and list it first. Keep the
+ * old one listed below it for one release, the app re-encodes the blobs written with it at startup and they can't be read without it.
+ */
+public final class DictionaryTrainer {
+
+    public static final int MAX_SIZE = 32 * 1024;
+    private static final int MIN_LINE = 8;
+    private static final int MIN_SAMPLES = 2;
+    private static final Pattern WORD = Pattern.compile("[\\p{L}_$][\\p{L}\\p{N}_$]{2,}");
+
+    private DictionaryTrainer() {}
+
+    public static byte[] train(Collection<String> samples, int maxSize) {
+        //Lines end with a newline and words with a space, so they can't collide
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String sample : samples) {
+            Set<String> candidates = new HashSet<>();
+            sample.lines().map(String::strip).filter(l -> l.length() >= MIN_LINE).forEach(l -> candidates.add(l + "\n"));
+            WORD.matcher(sample).results().forEach(m -> candidates.add(m.group() + " "));
+            candidates.forEach(c -> frequencies.merge(c, 1, Integer::sum));
+        }
+
+        List<byte[]> chosen = new ArrayList<>();
+        int size = 0;
+        List<Map.Entry<String, Integer>> ranked = frequencies.entrySet().stream()
+                .filter(e -> e.getValue() >= MIN_SAMPLES)
+                .sorted(Comparator.<Map.Entry<String, Integer>>comparingLong(e -> (long) e.getValue() * e.getKey().length()).reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .toList();
+        for (Map.Entry<String, Integer> e : ranked) {
+            byte[] candidate = e.getKey().getBytes(StandardCharsets.UTF_8);
+            if (size + candidate.length > maxSize) continue;
+            chosen.add(candidate);
+            size += candidate.length;
+        }
+
+        byte[] dictionary = new byte[size];
+        int offset = size;
+        for (byte[] candidate : chosen) {
+            offset -= candidate.length;
+            System.arraycopy(candidate, 0, dictionary, offset, candidate.length);
+        }
+        return dictionary;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: DictionaryTrainer <output> <source or blob file or directory>...");
+            System.exit(1);
+        }
+
+        List<String> samples = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            try (Stream<Path> paths = Files.walk(Path.of(args[i]))) {
+                for (Path path : paths.filter(Files::isRegularFile).toList()) {
+                    //Blobs are named after their hash, anything with an extension is a source file
+                    byte[] bytes = Files.readAllBytes(path);
+                    samples.add(new String(path.getFileName().toString().contains(".") ? bytes : Codecs.decode(bytes), StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        byte[] dictionary = train(samples, MAX_SIZE);
+        Files.write(Path.of(args[0]), dictionary);
+        System.out.printf("Trained a %d byte dictionary on %d samples, its ID is %08x%n", dictionary.length, samples.size(), new DeflateCodec(dictionary).dictionaryId());
+    }
+}
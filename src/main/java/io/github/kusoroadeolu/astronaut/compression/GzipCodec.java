@@ -0,0 +1,48 @@
+package io.github.kusoroadeolu.astronaut.compression;
+
+import io.github.kusoroadeolu.astronaut.exceptions.IndexPersistenceException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The original codec, plain gzip streams. Only kept to read content written before {@link DeflateCodec}, gzip's magic number
+ * doubles as its tag.
+ */
+final class GzipCodec implements ContentCodec {
+
+    static final byte TAG = 0x1f;
+
+    @Override
+    public byte tag() {
+        return TAG;
+    }
+
+    @Override
+    public byte[] encode(byte[] raw) {
+        var outputStream = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(outputStream)) {
+            gzip.write(raw);
+        } catch (IOException e) {
+            throw new IndexPersistenceException("Failed to compress content to index file", e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    @Override
+    public byte[] decode(byte[] encoded) {
+        try (var gzip = new GZIPInputStream(new ByteArrayInputStream(encoded))) {
+            return gzip.readAllBytes();
+        } catch (IOException e) {
+            throw new IndexPersistenceException("Failed to decompress content from index file", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "gzip";
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.kusoroadeolu.astronaut.compression;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool of objects that are expensive to create, like the native state behind a {@link java.util.zip.Deflater}.
+ * </br>Requests run on virtual threads, so thread locals would create one instance per request rather than per carrier. Acquiring
+ * never blocks, a new instance is created when the pool is empty and released instances past the capacity are discarded.
+ */
+final class Pool<T> {
+
+    private final BlockingQueue<T> idle;
+    private final Supplier<T> factory;
+    private final Consumer<T> discard;
+
+    Pool(int capacity, Supplier<T> factory, Consumer<T> discard) {
+        this.idle = new ArrayBlockingQueue<>(capacity);
+        this.factory = factory;
+        this.discard = discard;
+    }
+
+    T acquire() {
+        T t = idle.poll();
+        return t != null ? t : factory.get();
+    }
+
+    //The caller resets the instance first
+    void release(T t) {
+        if (!idle.offer(t)) discard.accept(t);
+    }
+}
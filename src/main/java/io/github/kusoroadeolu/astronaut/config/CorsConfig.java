@@ -1,5 +1,6 @@
 package io.github.kusoroadeolu.astronaut.config;
 
+import io.github.kusoroadeolu.astronaut.controllers.SnippetQueryController;
 import org.jspecify.annotations.NonNull;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -22,6 +23,7 @@ public class CorsConfig {
                     .allowedOrigins(frontendUrl)
                     .allowedMethods("GET", "POST", "PUT", "PATCH" ,"DELETE", "OPTIONS")
                     .allowedHeaders("*")
+                    .exposedHeaders(SnippetQueryController.NEXT_CURSOR_HEADER)
                     .allowCredentials(true)
                     .maxAge(3600);
             }
@@ -2,12 +2,19 @@ package io.github.kusoroadeolu.astronaut.config;
 
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParserConfiguration;
+import io.github.kusoroadeolu.astronaut.ContentCache;
+import io.github.kusoroadeolu.astronaut.ContentStore;
 import io.github.kusoroadeolu.astronaut.SnippetCache;
+import io.github.kusoroadeolu.astronaut.search.QueryCache;
+import io.github.kusoroadeolu.astronaut.search.SnippetSearchIndex;
+import io.github.kusoroadeolu.astronaut.services.ParserPool;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestClient;
 
+import java.nio.file.Path;
+
 @Configuration
 public class MiscConfig {
 
@@ -15,8 +22,30 @@ public class MiscConfig {
     private String patToken;
 
     @Bean
-    public SnippetCache cache() {
-        return new SnippetCache();
+    public SnippetSearchIndex searchIndex() {
+        return new SnippetSearchIndex();
+    }
+
+    @Bean
+    public ContentStore contentStore(@Value("${index.blob-dir:${index.file-path}.blobs}") String blobDir) {
+        return new ContentStore(Path.of(blobDir));
+    }
+
+    @Bean
+    public ContentCache contentCache(@Value("${index.content-cache.max-bytes:33554432}") long maxBytes) {
+        return new ContentCache(maxBytes);
+    }
+
+    @Bean
+    public SnippetCache cache(SnippetSearchIndex searchIndex, ContentStore contentStore, ContentCache contentCache) {
+        return new SnippetCache(searchIndex, contentStore, contentCache);
+    }
+
+    @Bean
+    public QueryCache queryCache(SnippetCache cache,
+                                 @Value("${search.query-cache.size:256}") int size,
+                                 @Value("${search.query-cache.max-results:10000}") int maxResults) {
+        return new QueryCache(size, maxResults, cache::version);
     }
 
     @Bean
@@ -29,11 +58,15 @@ public class MiscConfig {
                 .build();
     }
 
+    //One parser per pool thread, sized to the cores unless configured
     @Bean
-    public JavaParser javaParser() {
+    public ParserPool parserPool(@Value("${parse.threads:0}") int threads) {
+        return new ParserPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), MiscConfig::javaParser);
+    }
+
+    private static JavaParser javaParser() {
         ParserConfiguration configuration = new ParserConfiguration();
         configuration.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21);
         return new JavaParser(configuration);
-
     }
 }
@@ -1,6 +1,10 @@
 package io.github.kusoroadeolu.astronaut.controllers;
 
+import io.github.kusoroadeolu.astronaut.dtos.FacetsResponse;
+import io.github.kusoroadeolu.astronaut.dtos.SearchPage;
+import io.github.kusoroadeolu.astronaut.dtos.SimilarSnippetResponse;
 import io.github.kusoroadeolu.astronaut.dtos.SnippetResponse;
+import io.github.kusoroadeolu.astronaut.dtos.SuggestionResponse;
 import io.github.kusoroadeolu.astronaut.dtos.diffs.SnippetDiffPair;
 import io.github.kusoroadeolu.astronaut.exceptions.ApiError;
 import io.github.kusoroadeolu.astronaut.services.SnippetDiffService;
@@ -32,14 +36,71 @@ public class SnippetQueryController {
 
     private final SnippetQueryService queryService;
     private final SnippetDiffService diffService;
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     @GetMapping("/search")
-    @Operation(summary = "Search snippets", description = "Searches snippets based on provided criteria")
+    @Operation(summary = "Search snippets", description = "Searches snippets based on provided criteria, best matches first. The cursor for the next page is returned in the " + NEXT_CURSOR_HEADER + " header")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Snippets filtered successfully")
+            @ApiResponse(responseCode = "200", description = "Snippets filtered successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid query or cursor", content = @Content(schema = @Schema(implementation = ApiError.class)))
     })
-    public ResponseEntity<List<SnippetResponse>> filterSnippets(@RequestParam("query") String query){
-        return ResponseEntity.ok(queryService.searchBasedOnCriteria(query));
+    public ResponseEntity<List<SnippetResponse>> filterSnippets(
+            @RequestParam("query") String query,
+            @Parameter(description = "Max number of results to return") @RequestParam(value = "limit", defaultValue = "50") int limit,
+            @Parameter(description = "Cursor from a previous page's " + NEXT_CURSOR_HEADER + " header") @RequestParam(value = "cursor", required = false) String cursor
+    ){
+        return withCursor(queryService.searchBasedOnCriteria(query, limit, cursor));
+    }
+
+    @GetMapping("/search/text")
+    @Operation(summary = "Free-text search", description = "Searches snippet descriptions, file names, class names and method names, ranked with BM25. The cursor for the next page is returned in the " + NEXT_CURSOR_HEADER + " header")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Snippets searched successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor", content = @Content(schema = @Schema(implementation = ApiError.class)))
+    })
+    public ResponseEntity<List<SnippetResponse>> searchText(
+            @RequestParam("query") String query,
+            @Parameter(description = "Max number of results to return") @RequestParam(value = "limit", defaultValue = "50") int limit,
+            @Parameter(description = "Cursor from a previous page's " + NEXT_CURSOR_HEADER + " header") @RequestParam(value = "cursor", required = false) String cursor
+    ){
+        return withCursor(queryService.searchText(query, limit, cursor));
+    }
+
+    @GetMapping("/facets")
+    @Operation(summary = "Count snippets per language and tag", description = "Counts snippets per language and per tag, within a search's results if a query is given")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Facets counted successfully", content = @Content(schema = @Schema(implementation = FacetsResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid query", content = @Content(schema = @Schema(implementation = ApiError.class)))
+    })
+    public ResponseEntity<FacetsResponse> facets(
+            @Parameter(description = "Search query to count within, every snippet if absent") @RequestParam(value = "query", required = false) String query
+    ){
+        return ResponseEntity.ok(queryService.facets(query));
+    }
+
+    @GetMapping("/suggest")
+    @Operation(summary = "Suggest search terms", description = "Completes a prefix with the most common matching tags, class names, method names and file names")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Suggestions retrieved successfully")
+    })
+    public ResponseEntity<List<SuggestionResponse>> suggest(
+            @Parameter(description = "What the user has typed so far") @RequestParam("prefix") String prefix,
+            @Parameter(description = "Max number of suggestions to return") @RequestParam(value = "limit", defaultValue = "10") int limit
+    ){
+        return ResponseEntity.ok(queryService.suggest(prefix, limit));
+    }
+
+    @GetMapping("/{id}/similar")
+    @Operation(summary = "Find similar snippets", description = "Finds snippets whose content is a near-duplicate of the given snippet's, most similar first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Similar snippets found successfully"),
+            @ApiResponse(responseCode = "404", description = "Snippet not found", content = @Content(schema = @Schema(implementation = ApiError.class)))
+    })
+    public ResponseEntity<List<SimilarSnippetResponse>> findSimilar(
+            @Parameter(description = "Snippet ID", required = true) @PathVariable("id") String id,
+            @Parameter(description = "Max number of results to return") @RequestParam(value = "limit", defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(queryService.findSimilar(id, limit));
     }
 
     @GetMapping("/{id}/compare/{comparingToId}")
@@ -54,4 +115,10 @@ public class SnippetQueryController {
     ) {
         return ResponseEntity.ok(diffService.generateSnippetDiff(comparingId, comparingToId));
     }
-}
\ No newline at end of file
+
+    private static ResponseEntity<List<SnippetResponse>> withCursor(SearchPage page) {
+        var response = ResponseEntity.ok();
+        if (page.nextCursor() != null) response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        return response.body(page.results());
+    }
+}
@@ -0,0 +1,6 @@
+package io.github.kusoroadeolu.astronaut.dtos;
+
+import java.util.Map;
+
+public record FacetsResponse(Map<String, Integer> languages, Map<String, Integer> tags) {
+}
@@ -0,0 +1,14 @@
+package io.github.kusoroadeolu.astronaut.dtos;
+
+/**
+ * A conditional gist fetch.
+ * @param response the gist, null if it wasn't modified since the validators sent
+ * @param etag the gist's ETag, to send back as {@code If-None-Match}
+ * @param lastModified the gist's Last-Modified, to send back as {@code If-Modified-Since}
+ */
+public record GistFetch(GistFetchResponse response, String etag, String lastModified) {
+
+    public boolean notModified() {
+        return response == null;
+    }
+}
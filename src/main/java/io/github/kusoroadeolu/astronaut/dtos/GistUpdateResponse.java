@@ -0,0 +1,9 @@
+package io.github.kusoroadeolu.astronaut.dtos;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record GistUpdateResponse(
+        @JsonProperty("updated_at")
+        String updatedAt
+) {
+}
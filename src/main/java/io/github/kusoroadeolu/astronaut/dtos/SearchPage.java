@@ -0,0 +1,6 @@
+package io.github.kusoroadeolu.astronaut.dtos;
+
+import java.util.List;
+
+public record SearchPage(List<SnippetResponse> results, String nextCursor) {
+}
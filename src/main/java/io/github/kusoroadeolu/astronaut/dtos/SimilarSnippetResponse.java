@@ -0,0 +1,4 @@
+package io.github.kusoroadeolu.astronaut.dtos;
+
+public record SimilarSnippetResponse(SnippetResponse snippet, double similarity) {
+}
@@ -0,0 +1,4 @@
+package io.github.kusoroadeolu.astronaut.dtos;
+
+public record SuggestionResponse(String term, String keyword, int count) {
+}
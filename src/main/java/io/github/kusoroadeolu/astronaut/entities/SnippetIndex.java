@@ -1,9 +1,14 @@
 package io.github.kusoroadeolu.astronaut.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.nio.ByteBuffer;
+import java.util.Base64;
 import java.util.Objects;
 import java.util.Set;
 
@@ -22,8 +27,47 @@ public class SnippetIndex {
     private Set<String> methodNames;
     private String createdAt;
     private String updatedAt;
-    private String content; //Compressed
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String content; //Compressed, only set until the cache moves it to the content store
     private String contentHash;
+    private Integer extractorVersion; //The version of the metadata extractors class and method names were last extracted with
+    private String etag; //The validators of the gist's last fetch, sent back so an unchanged gist comes back as a 304
+    private String lastModified;
+
+    //Compressed content as raw bytes, freshly compressed or read from a binary index. Read instead of content until content is set
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private ByteBuffer contentBlob;
+
+    //Base64 of the compressed content, only built on demand for snippets loaded from a binary index
+    public String getContent() {
+        if (content == null && contentBlob != null) return Base64.getEncoder().encodeToString(getCompressedContent());
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+        this.contentBlob = null;
+    }
+
+    public void setContentBlob(ByteBuffer contentBlob) {
+        this.content = null;
+        this.contentBlob = contentBlob;
+    }
+
+    public boolean hasContent() {
+        return content != null || contentBlob != null;
+    }
+
+    @JsonIgnore
+    public byte[] getCompressedContent() {
+        if (content != null) return Base64.getDecoder().decode(content);
+        if (contentBlob == null) return null;
+        byte[] bytes = new byte[contentBlob.remaining()];
+        contentBlob.duplicate().get(bytes);
+        return bytes;
+    }
 
     @Override
     public boolean equals(Object o) {
@@ -39,7 +83,7 @@ public class SnippetIndex {
     }
 
     public boolean isJavaSnippet() {
-        return language.equalsIgnoreCase("java");
+        return "java".equalsIgnoreCase(language); //GitHub leaves the language null when it can't tell
     }
 
     @Override
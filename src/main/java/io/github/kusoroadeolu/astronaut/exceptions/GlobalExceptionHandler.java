@@ -26,6 +26,14 @@ public class GlobalExceptionHandler {
         return corsEntity(error, HttpStatus.FORBIDDEN);
     }
 
+    @ExceptionHandler({
+            InvalidQueryException.class
+    })
+    public ResponseEntity<ApiError> handleBadRequestExceptions(Exception e){
+        ApiError error = new ApiError(400, e.getMessage(), LocalDateTime.now());
+        return corsEntity(error, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler({
             NoSuchSnippetException.class
     })
@@ -34,12 +42,21 @@ public class GlobalExceptionHandler {
         return corsEntity(error, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler({
+            IndexNotReadyException.class
+    })
+    public ResponseEntity<ApiError> handleUnavailableExceptions(Exception e){
+        ApiError error = new ApiError(503, e.getMessage(), LocalDateTime.now());
+        return corsEntity(error, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler({
             SnippetParseException.class,
             SnippetPersistenceException.class,
             GistPersistenceException.class,
             IndexPersistenceException.class,
-            SnippetComparisonException.class
+            SnippetComparisonException.class,
+            SnippetContentMissingException.class
     })
     public ResponseEntity<ApiError> handleServerSideExceptions(Exception e){
         ApiError error = new ApiError(500, e.getMessage(), LocalDateTime.now());
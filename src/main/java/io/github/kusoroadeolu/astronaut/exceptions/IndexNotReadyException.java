@@ -0,0 +1,7 @@
+package io.github.kusoroadeolu.astronaut.exceptions;
+
+public class IndexNotReadyException extends RuntimeException {
+    public IndexNotReadyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package io.github.kusoroadeolu.astronaut.exceptions;
+
+public class InvalidQueryException extends RuntimeException {
+    public InvalidQueryException(String message) {
+        super(message);
+    }
+
+    public InvalidQueryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,7 @@
+package io.github.kusoroadeolu.astronaut.exceptions;
+
+public class SnippetContentMissingException extends RuntimeException {
+    public SnippetContentMissingException(String message) {
+        super(message);
+    }
+}
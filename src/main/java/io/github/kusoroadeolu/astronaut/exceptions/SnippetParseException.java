@@ -5,6 +5,10 @@ public class SnippetParseException extends RuntimeException {
         super(message);
     }
 
+    public SnippetParseException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
     public SnippetParseException() {
         super();
     }
@@ -0,0 +1,161 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Burkhard-Keller tree over a vocabulary of terms, keyed by levenshtein distance.
+ * </br>A search for every term within {@code k} edits of a query only descends into children whose edge distance is within
+ * {@code [d - k, d + k]} of the current node (triangle inequality), so it visits a small fraction of the vocabulary for small {@code k}.
+ * </br>BK-trees can't unlink a node without re-inserting its subtree, so removed terms are tombstoned and the tree is rebuilt
+ * once tombstones outnumber live terms. Not thread safe on its own.
+ */
+final class BkTree {
+
+    private Node root;
+    private int size;
+    private int tombstones;
+
+    void add(String term) {
+        if (root == null) {
+            root = new Node(term);
+            size++;
+            return;
+        }
+
+        Node node = root;
+        while (true) {
+            int d = distance(node.term, term, Integer.MAX_VALUE);
+            if (d == 0) {
+                if (node.deleted) {
+                    node.deleted = false;
+                    tombstones--;
+                    size++;
+                }
+                return;
+            }
+
+            Node child = node.children.get(d);
+            if (child == null) {
+                node.children.put(d, new Node(term));
+                node.maxEdge = Math.max(node.maxEdge, d);
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    void remove(String term) {
+        Node node = root;
+        while (node != null) {
+            int d = distance(node.term, term, Integer.MAX_VALUE);
+            if (d == 0) {
+                if (!node.deleted) {
+                    node.deleted = true;
+                    tombstones++;
+                    size--;
+                }
+                break;
+            }
+            node = node.children.get(d);
+        }
+
+        if (tombstones > size) rebuild();
+    }
+
+    /**
+     * @param term the query term
+     * @param maxDistance the max edit distance, inclusive
+     * @return every live term within {@code maxDistance} edits of the query term, with its distance
+     */
+    List<TermMatch> search(String term, int maxDistance) {
+        List<TermMatch> matches = new ArrayList<>();
+        if (root == null) return matches;
+
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            //Past maxEdge + maxDistance no child can qualify, so the exact distance no longer matters
+            int d = distance(node.term, term, node.maxEdge + maxDistance);
+            if (d <= maxDistance && !node.deleted) matches.add(new TermMatch(node.term, d));
+
+            for (Map.Entry<Integer, Node> e : node.children.entrySet()) {
+                if (Math.abs(e.getKey() - d) <= maxDistance) stack.push(e.getValue());
+            }
+        }
+
+        return matches;
+    }
+
+    /**
+     * Levenshtein distance between both strings, bailing out early once it's known to be over {@code limit}
+     * @return the distance, or any value over {@code limit} if the distance exceeds it
+     */
+    static int distance(String a, String b, int limit) {
+        int n = a.length(), m = b.length();
+        if (Math.abs(n - m) > limit) return limit + 1;
+        if (n == 0) return m;
+        if (m == 0) return n;
+
+        int[] prev = new int[m + 1];
+        int[] curr = new int[m + 1];
+        for (int j = 0; j <= m; j++) prev[j] = j;
+
+        for (int i = 1; i <= n; i++) {
+            curr[0] = i;
+            int rowMin = curr[0];
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                curr[j] = Math.min(Math.min(curr[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                rowMin = Math.min(rowMin, curr[j]);
+            }
+            if (rowMin > limit) return limit + 1;
+            int[] tmp = prev;
+            prev = curr;
+            curr = tmp;
+        }
+
+        return prev[m];
+    }
+
+    void clear() {
+        root = null;
+        size = 0;
+        tombstones = 0;
+    }
+
+    //Re-inserts every live term into a fresh tree
+    private void rebuild() {
+        List<String> live = new ArrayList<>(size);
+        Deque<Node> stack = new ArrayDeque<>();
+        if (root != null) stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (!node.deleted) live.add(node.term);
+            node.children.values().forEach(stack::push);
+        }
+
+        clear();
+        live.forEach(this::add);
+    }
+
+    record TermMatch(String term, int distance) {}
+
+    private static final class Node {
+        private final String term;
+        private final Map<Integer, Node> children = new HashMap<>(4);
+        private int maxEdge;
+        private boolean deleted;
+
+        private Node(String term) {
+            this.term = term;
+        }
+    }
+}
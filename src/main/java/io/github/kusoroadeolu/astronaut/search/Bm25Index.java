@@ -0,0 +1,227 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import io.github.kusoroadeolu.astronaut.entities.SnippetIndex;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.regex.Pattern;
+
+/**
+ * A free-text index over snippet descriptions, file names and identifiers, ranked with BM25.
+ * </br>Every term keeps its doc bitmap, per-doc term frequencies and an upper bound on the score it can contribute.
+ * Queries run document-at-a-time with MaxScore: terms whose bounds add up to less than the current k-th best score can't
+ * make a doc enter the top k on their own, so only docs containing at least one of the other terms are visited, and
+ * a doc stops being scored as soon as its remaining bounds can't lift it over the threshold.
+ * </br>Not thread safe on its own, {@link SnippetSearchIndex} guards every access.
+ */
+final class Bm25Index {
+
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+
+    private static final Pattern WORD_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}_$]+");
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Integer, Map<String, Integer>> forward = new HashMap<>();
+    private final Map<Integer, Integer> lengths = new HashMap<>();
+    private long totalLength;
+
+    /**
+     * The terms of a snippet with their frequencies. Description words and names are split like identifiers,
+     * so {@code concurrent} in a query finds both prose and {@code UnrolledConcurrentList}.
+     */
+    static Map<String, Integer> termsOf(SnippetIndex snippet) {
+        Map<String, Integer> terms = new HashMap<>();
+        addText(snippet.getDescription(), terms);
+        addText(snippet.getFileName(), terms);
+        addNames(snippet.getClassNames(), terms);
+        addNames(snippet.getMethodNames(), terms);
+        return terms;
+    }
+
+    //The distinct terms of a free-text query, in the order they were typed
+    static List<String> queryTerms(String query) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String word : WORD_SEPARATORS.split(query)) {
+            if (!word.isEmpty()) Identifiers.forEachTerm(word, terms::add);
+        }
+        return List.copyOf(terms);
+    }
+
+    void add(int doc, Map<String, Integer> terms) {
+        remove(doc);
+        if (terms.isEmpty()) return;
+        int length = 0;
+        for (Map.Entry<String, Integer> e : terms.entrySet()) {
+            postings.computeIfAbsent(e.getKey(), _ -> new Postings()).add(doc, e.getValue());
+            length += e.getValue();
+        }
+        forward.put(doc, Map.copyOf(terms));
+        lengths.put(doc, length);
+        totalLength += length;
+    }
+
+    void remove(int doc) {
+        Map<String, Integer> terms = forward.remove(doc);
+        if (terms == null) return;
+        totalLength -= lengths.remove(doc);
+        for (Map.Entry<String, Integer> e : terms.entrySet()) {
+            Postings p = postings.get(e.getKey());
+            if (p == null) continue;
+            p.remove(doc);
+            if (p.docs.isEmpty()) postings.remove(e.getKey());
+        }
+    }
+
+    void clear() {
+        postings.clear();
+        forward.clear();
+        lengths.clear();
+        totalLength = 0;
+    }
+
+    /**
+     * @param terms the query terms
+     * @param k the max number of results
+     * @param after only docs ranked after this cursor are considered, null to start from the top
+     * @param idOf maps a doc to its snippet ID
+     * @return up to {@code k} results, best first
+     */
+    List<TopK.ScoredId> search(Collection<String> terms, int k, SearchCursor after, IntFunction<String> idOf) {
+        int docCount = forward.size();
+        if (docCount == 0 || k <= 0) return List.of();
+        double avgLength = (double) totalLength / docCount;
+
+        List<QueryTerm> query = new ArrayList<>();
+        for (String term : terms) {
+            Postings p = postings.get(term);
+            if (p != null) query.add(new QueryTerm(p, idf(p.docs.getCardinality(), docCount)));
+        }
+        if (query.isEmpty()) return List.of();
+
+        //Ascending bounds, prefix[i] is the most the first i terms can add up to
+        query.sort(Comparator.comparingDouble(QueryTerm::bound));
+        double[] prefix = new double[query.size() + 1];
+        for (int i = 0; i < query.size(); i++) prefix[i + 1] = prefix[i] + query.get(i).bound();
+
+        PriorityQueue<TopK.ScoredId> heap = new PriorityQueue<>(Math.min(k, docCount) + 1, TopK.RANKING.reversed());
+        int essentialFrom = 0;
+        int doc = nextCandidate(query, essentialFrom, -1);
+        while (doc != -1) {
+            double norm = K1 * (1 - B + B * lengths.get(doc) / avgLength);
+            double score = 0;
+            for (int i = query.size() - 1; i >= essentialFrom; i--) score += query.get(i).score(doc, norm);
+
+            //Non-essential terms, best bound first, bail out as soon as the doc can't beat the k-th result
+            double threshold = heap.size() < k ? Double.NEGATIVE_INFINITY : heap.peek().score();
+            for (int i = essentialFrom - 1; i >= 0 && score + prefix[i + 1] >= threshold; i--) {
+                score += query.get(i).score(doc, norm);
+            }
+
+            if (score >= threshold) {
+                String id = idOf.apply(doc);
+                if (after == null || after.precedes(score, id)) {
+                    TopK.ScoredId candidate = new TopK.ScoredId(id, score);
+                    if (heap.size() < k) {
+                        heap.offer(candidate);
+                    } else if (TopK.RANKING.compare(candidate, heap.peek()) < 0) {
+                        heap.poll();
+                        heap.offer(candidate);
+                    }
+                    //A higher threshold can move more terms out of the essential set
+                    if (heap.size() == k) {
+                        double raised = heap.peek().score();
+                        while (essentialFrom < query.size() && prefix[essentialFrom + 1] < raised) essentialFrom++;
+                    }
+                }
+            }
+            if (essentialFrom == query.size()) break;
+            doc = nextCandidate(query, essentialFrom, doc);
+        }
+
+        List<TopK.ScoredId> results = new ArrayList<>(heap);
+        results.sort(TopK.RANKING);
+        return results;
+    }
+
+    //The smallest doc after `after` that has at least one essential term, -1 if there's none
+    private static int nextCandidate(List<QueryTerm> query, int essentialFrom, int after) {
+        int next = -1;
+        for (int i = essentialFrom; i < query.size(); i++) {
+            PeekableIntIterator it = query.get(i).iterator;
+            it.advanceIfNeeded(after + 1);
+            if (it.hasNext() && (next == -1 || it.peekNext() < next)) next = it.peekNext();
+        }
+        return next;
+    }
+
+    private static double idf(int docFrequency, int docCount) {
+        return Math.log(1 + (docCount - docFrequency + 0.5) / (docFrequency + 0.5));
+    }
+
+    private static void addText(String text, Map<String, Integer> terms) {
+        if (text == null || text.isBlank()) return;
+        for (String word : WORD_SEPARATORS.split(text)) {
+            if (!word.isEmpty()) Identifiers.forEachTerm(word, t -> terms.merge(t, 1, Integer::sum));
+        }
+    }
+
+    private static void addNames(Collection<String> names, Map<String, Integer> terms) {
+        if (names == null) return;
+        for (String name : names) addText(name, terms);
+    }
+
+    private static final class Postings {
+        private final RoaringBitmap docs = new RoaringBitmap();
+        private final Map<Integer, Integer> frequencies = new HashMap<>();
+        private int maxFrequency; //Only ever grows, a stale bound is still a valid one
+
+        void add(int doc, int frequency) {
+            docs.add(doc);
+            frequencies.put(doc, frequency);
+            maxFrequency = Math.max(maxFrequency, frequency);
+        }
+
+        void remove(int doc) {
+            docs.remove(doc);
+            frequencies.remove(doc);
+        }
+    }
+
+    private static final class QueryTerm {
+        private final Postings postings;
+        private final double idf;
+        private final double bound;
+        private final PeekableIntIterator iterator;
+
+        QueryTerm(Postings postings, double idf) {
+            this.postings = postings;
+            this.idf = idf;
+            //The BM25 term score grows with the frequency and shrinks with the doc length, so the max frequency at length 0 bounds it
+            double tf = postings.maxFrequency;
+            this.bound = idf * tf * (K1 + 1) / (tf + K1 * (1 - B));
+            this.iterator = postings.docs.getIntIterator();
+        }
+
+        double bound() {
+            return bound;
+        }
+
+        //norm is the doc's length normalization, K1 * (1 - B + B * length / avgLength)
+        double score(int doc, double norm) {
+            Integer frequency = postings.frequencies.get(doc);
+            if (frequency == null) return 0;
+            return idf * frequency * (K1 + 1) / (frequency + norm);
+        }
+    }
+}
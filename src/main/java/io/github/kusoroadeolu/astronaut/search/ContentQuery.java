@@ -0,0 +1,54 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import io.github.kusoroadeolu.astronaut.exceptions.InvalidQueryException;
+
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A search over snippet content, either a case-insensitive literal or a regex.
+ * </br>Besides the predicate that verifies a decompressed snippet, a query carries the literals any match must contain,
+ * which the {@link SnippetSearchIndex} turns into trigram lookups to pick the candidates worth verifying.
+ */
+public final class ContentQuery {
+
+    private final List<List<String>> branches;
+    private final Predicate<String> matcher;
+
+    private ContentQuery(List<List<String>> branches, Predicate<String> matcher) {
+        this.branches = branches;
+        this.matcher = matcher;
+    }
+
+    public static ContentQuery literal(String text) {
+        String lower = text.toLowerCase();
+        if (lower.length() < Trigrams.LENGTH)
+            throw new InvalidQueryException("Content searches need at least %d characters, got: '%s'".formatted(Trigrams.LENGTH, text));
+        return new ContentQuery(List.of(List.of(lower)), content -> content.toLowerCase().contains(lower));
+    }
+
+    public static ContentQuery regex(String regex) {
+        Pattern pattern;
+        try {
+            pattern = Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            throw new InvalidQueryException("Invalid regex: %s".formatted(e.getDescription()), e);
+        }
+
+        List<List<String>> branches = RegexLiterals.extract(regex);
+        //Without a literal to look up, every snippet would have to be decompressed and scanned
+        if (branches.stream().anyMatch(List::isEmpty))
+            throw new InvalidQueryException("Regex '%s' is too broad, every alternative needs a literal of at least %d characters".formatted(regex, Trigrams.LENGTH));
+        return new ContentQuery(branches, content -> pattern.matcher(content).find());
+    }
+
+    public boolean matches(String content) {
+        return matcher.test(content);
+    }
+
+    List<List<String>> branches() {
+        return branches;
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps snippet IDs to dense ints, the doc numbers every bitmap posting list is keyed on.
+ * </br>Freed doc numbers are handed out again so the numbering stays dense, callers must drop a doc from every posting
+ * list before releasing it. Not thread safe on its own, {@link SnippetSearchIndex} guards every access.
+ */
+final class DocIds {
+
+    private final Map<String, Integer> docs = new HashMap<>();
+    private final List<String> ids = new ArrayList<>();
+    private final Deque<Integer> free = new ArrayDeque<>();
+    private final RoaringBitmap live = new RoaringBitmap();
+
+    //The doc number of the ID, assigning one if it has none yet
+    int assign(String id) {
+        Integer doc = docs.get(id);
+        if (doc != null) return doc;
+
+        if (free.isEmpty()) {
+            doc = ids.size();
+            ids.add(id);
+        } else {
+            doc = free.pop();
+            ids.set(doc, id);
+        }
+
+        docs.put(id, doc);
+        live.add(doc);
+        return doc;
+    }
+
+    //The doc number of the ID, -1 if it has none
+    int get(String id) {
+        return docs.getOrDefault(id, -1);
+    }
+
+    String id(int doc) {
+        return ids.get(doc);
+    }
+
+    void release(String id) {
+        Integer doc = docs.remove(id);
+        if (doc == null) return;
+        ids.set(doc, null);
+        live.remove(doc);
+        free.push(doc);
+    }
+
+    //Every live doc, the universe NOT clauses are taken against. Must not be mutated
+    RoaringBitmap all() {
+        return live;
+    }
+
+    void clear() {
+        docs.clear();
+        ids.clear();
+        free.clear();
+        live.clear();
+    }
+}
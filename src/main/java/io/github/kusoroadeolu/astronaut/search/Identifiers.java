@@ -0,0 +1,75 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Splits identifiers into the words they're made of, so a partial name like {@code concurrent} is an exact lookup
+ * for {@code UnrolledConcurrentList} instead of a wide fuzzy one.
+ * </br>Words break on {@code _}, {@code $}, {@code -} and {@code .}, on lower to upper case changes, before the last capital of an acronym
+ * ({@code HTTPServer} -> {@code http}, {@code server}) and between letters and digits. Identifiers that were already lower-cased
+ * can only be split on separators.
+ */
+final class Identifiers {
+
+    //Single characters match too much to be worth a posting list
+    static final int MIN_WORD_LENGTH = 2;
+
+    private Identifiers() {}
+
+    /**
+     * Passes the lower-cased identifier, then each of its words if it has more than one, to the action.
+     * @param identifier the identifier, as written in the source
+     * @param action receives every term
+     */
+    static void forEachTerm(String identifier, Consumer<String> action) {
+        String trimmed = identifier.trim();
+        if (trimmed.isEmpty()) return;
+        String full = trimmed.toLowerCase();
+        action.accept(full);
+
+        List<String> words = words(trimmed);
+        if (words.size() == 1 && words.getFirst().equals(full)) return;
+        words.forEach(action);
+    }
+
+    private static List<String> words(String trimmed) {
+        List<String> terms = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= trimmed.length(); i++) {
+            if (i == trimmed.length() || isSeparator(trimmed.charAt(i))) {
+                if (start != -1) addWord(trimmed, start, i, terms);
+                start = -1;
+                continue;
+            }
+
+            if (start == -1) {
+                start = i;
+            } else if (isBoundary(trimmed, i)) {
+                addWord(trimmed, start, i, terms);
+                start = i;
+            }
+        }
+        return terms;
+    }
+
+    //Whether a new word starts at i, given the previous char is part of the current word
+    private static boolean isBoundary(String s, int i) {
+        char prev = s.charAt(i - 1);
+        char c = s.charAt(i);
+        if (Character.isDigit(prev) != Character.isDigit(c)) return true;
+        if (Character.isLowerCase(prev) && Character.isUpperCase(c)) return true;
+        //The last capital of an acronym starts the next word, HTTPServer -> HTTP Server
+        return Character.isUpperCase(prev) && Character.isUpperCase(c)
+                && i + 1 < s.length() && Character.isLowerCase(s.charAt(i + 1));
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '_' || c == '$' || c == '-' || c == '.' || Character.isWhitespace(c);
+    }
+
+    private static void addWord(String s, int from, int to, List<String> terms) {
+        if (to - from >= MIN_WORD_LENGTH) terms.add(s.substring(from, to).toLowerCase());
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A term -> doc bitmap posting map for a single {@link SearchField}, with a {@link BkTree} over its distinct vocabulary
+ * for fuzzy term lookups and a {@link SuggestionTrie} for prefix completions.
+ * </br>Not thread safe on its own, {@link SnippetSearchIndex} guards every access.
+ */
+final class InvertedIndex {
+
+    private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+    private final Map<String, RoaringBitmap> postings = new HashMap<>();
+    private final BkTree vocabulary = new BkTree();
+    private final SuggestionTrie prefixes = new SuggestionTrie();
+
+    void add(String term, int doc) {
+        RoaringBitmap docs = postings.computeIfAbsent(term, t -> {
+            vocabulary.add(t);
+            return new RoaringBitmap();
+        });
+        if (docs.checkedAdd(doc)) prefixes.adjust(term, 1);
+    }
+
+    void remove(String term, int doc) {
+        RoaringBitmap docs = postings.get(term);
+        if (docs == null || !docs.checkedRemove(doc)) return;
+        prefixes.adjust(term, -1);
+        if (docs.isEmpty()) {
+            postings.remove(term);
+            vocabulary.remove(term);
+        }
+    }
+
+    //The posting list of the term, must not be mutated
+    RoaringBitmap get(String term) {
+        return postings.getOrDefault(term, EMPTY);
+    }
+
+    //Every term in the vocabulary within maxDistance edits of the given term
+    List<BkTree.TermMatch> fuzzyTerms(String term, int maxDistance) {
+        return vocabulary.search(term, maxDistance);
+    }
+
+    //The number of docs each term appears in, the cardinality of a posting list is tracked as it's mutated
+    Map<String, Integer> counts() {
+        Map<String, Integer> counts = new HashMap<>(postings.size());
+        postings.forEach((term, docs) -> counts.put(term, docs.getCardinality()));
+        return counts;
+    }
+
+    //The number of the given docs each term appears in, terms that appear in none are left out
+    Map<String, Integer> counts(RoaringBitmap within) {
+        Map<String, Integer> counts = new HashMap<>();
+        postings.forEach((term, docs) -> {
+            int count = RoaringBitmap.andCardinality(docs, within);
+            if (count > 0) counts.put(term, count);
+        });
+        return counts;
+    }
+
+    //The most common terms starting with the prefix
+    List<SuggestionTrie.Completion> complete(String prefix, int limit) {
+        return prefixes.complete(prefix, limit);
+    }
+
+    void clear() {
+        postings.clear();
+        vocabulary.clear();
+        prefixes.clear();
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Locality sensitive hashing over {@link MinHash} signatures, used to find near-duplicate snippets without comparing every pair.
+ * </br>A signature is cut into {@link #BANDS} bands of {@link #ROWS} slots, and each band is hashed into a bucket. Two snippets become
+ * candidates when any band lands them in the same bucket, which is likely once their similarity is past roughly
+ * {@code (1 / BANDS) ^ (1 / ROWS)} (about 0.42). Candidates are then ranked by their estimated similarity.
+ * </br>Not thread safe on its own, {@link SnippetSearchIndex} guards every access.
+ */
+final class LshIndex {
+
+    static final int BANDS = 32;
+    static final int ROWS = MinHash.SIZE / BANDS;
+
+    private final List<Map<Long, RoaringBitmap>> buckets = new ArrayList<>(BANDS);
+    private final Map<Integer, int[]> signatures = new HashMap<>();
+
+    LshIndex() {
+        for (int i = 0; i < BANDS; i++) buckets.add(new HashMap<>());
+    }
+
+    void add(int doc, int[] signature) {
+        remove(doc);
+        if (signature == null) return;
+        for (int band = 0; band < BANDS; band++) buckets.get(band).computeIfAbsent(bandKey(signature, band), _ -> new RoaringBitmap()).add(doc);
+        signatures.put(doc, signature);
+    }
+
+    void remove(int doc) {
+        int[] signature = signatures.remove(doc);
+        if (signature == null) return;
+        for (int band = 0; band < BANDS; band++) {
+            long key = bandKey(signature, band);
+            RoaringBitmap docs = buckets.get(band).get(key);
+            if (docs == null) continue;
+            docs.remove(doc);
+            if (docs.isEmpty()) buckets.get(band).remove(key);
+        }
+    }
+
+    void clear() {
+        buckets.forEach(Map::clear);
+        signatures.clear();
+    }
+
+    /**
+     * @param doc the doc to find near-duplicates of
+     * @param minSimilarity the lowest estimated similarity to return
+     * @param limit the max number of results
+     * @return the docs sharing a bucket with the doc, most similar first, empty if the doc has no signature
+     */
+    List<Similar> similar(int doc, double minSimilarity, int limit) {
+        int[] target = signatures.get(doc);
+        if (target == null) return List.of();
+
+        RoaringBitmap candidates = new RoaringBitmap();
+        for (int band = 0; band < BANDS; band++) {
+            RoaringBitmap docs = buckets.get(band).get(bandKey(target, band));
+            if (docs != null) candidates.or(docs);
+        }
+        candidates.remove(doc);
+
+        List<Similar> similar = new ArrayList<>();
+        candidates.forEach((int other) -> {
+            double similarity = MinHash.similarity(target, signatures.get(other));
+            if (similarity >= minSimilarity) similar.add(new Similar(other, similarity));
+        });
+        similar.sort(Comparator.comparingDouble(Similar::similarity).reversed().thenComparingInt(Similar::doc));
+        return similar.size() > limit ? List.copyOf(similar.subList(0, limit)) : similar;
+    }
+
+    private static long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) key = MinHash.mix(key * 31 + signature[i]);
+        return key;
+    }
+
+    record Similar(int doc, double similarity) {}
+}
@@ -0,0 +1,74 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * MinHash signatures over the token shingles of a snippet's content.
+ * </br>Content is tokenized into identifiers, numbers and single symbols, so formatting and whitespace don't count, then every run
+ * of {@link #SHINGLE} consecutive tokens is hashed. Slot {@code i} of a signature is the smallest value of the {@code i}-th hash function
+ * over the shingles, so the fraction of slots two signatures agree on estimates the Jaccard similarity of their shingle sets.
+ */
+final class MinHash {
+
+    static final int SIZE = 128;
+    static final int SHINGLE = 3;
+
+    private static final Pattern TOKEN = Pattern.compile("[\\p{L}\\p{N}_$]+|\\S");
+    private static final long[] SEEDS = new long[SIZE];
+
+    static {
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < SIZE; i++) SEEDS[i] = seed = mix(seed + i);
+    }
+
+    private MinHash() {}
+
+    /**
+     * @return the content's signature, null if it has fewer tokens than a shingle
+     */
+    static int[] signature(String content) {
+        long[] tokens = tokens(content);
+        if (tokens.length < SHINGLE) return null;
+
+        int[] signature = new int[SIZE];
+        Arrays.fill(signature, -1);
+        for (int i = 0; i + SHINGLE <= tokens.length; i++) {
+            long shingle = tokens[i];
+            for (int j = 1; j < SHINGLE; j++) shingle = mix(shingle * 31 + tokens[i + j]);
+            for (int h = 0; h < SIZE; h++) {
+                int value = (int) (mix(shingle ^ SEEDS[h]) >>> 32);
+                if (Integer.compareUnsigned(value, signature[h]) < 0) signature[h] = value;
+            }
+        }
+        return signature;
+    }
+
+    //The estimated Jaccard similarity of the shingle sets the signatures came from
+    static double similarity(int[] a, int[] b) {
+        int same = 0;
+        for (int i = 0; i < SIZE; i++) {
+            if (a[i] == b[i]) same++;
+        }
+        return (double) same / SIZE;
+    }
+
+    private static long[] tokens(String content) {
+        Matcher matcher = TOKEN.matcher(content);
+        long[] tokens = new long[64];
+        int size = 0;
+        while (matcher.find()) {
+            if (size == tokens.length) tokens = Arrays.copyOf(tokens, size * 2);
+            tokens[size++] = mix(matcher.group().hashCode());
+        }
+        return Arrays.copyOf(tokens, size);
+    }
+
+    //The splitmix64 finalizer, spreads every input bit over the whole output
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * LRU cache of parsed queries and their scored results.
+ * </br>Results are tagged with the snippet version they were computed against and are only served while that version is current,
+ * the parsed query itself stays valid across versions. Result maps larger than {@code maxResults} aren't kept, broad queries are cheap
+ * to re-evaluate and expensive to hold on to.
+ */
+public class QueryCache {
+    private final Map<String, Entry> entries;
+    private final LongSupplier version;
+    private final int maxResults;
+
+    /**
+     * @param capacity the max number of queries to keep
+     * @param maxResults the max number of scored ids kept per query
+     * @param version the current snippet version, must be bumped after every index change
+     */
+    public QueryCache(int capacity, int maxResults, LongSupplier version) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.version = version;
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * @param query the raw query
+     * @param evaluator evaluates a parsed query against the index
+     * @return the scores of the matching snippets, null if the query is blank
+     * @throws io.github.kusoroadeolu.astronaut.exceptions.InvalidQueryException if the query can't be parsed, invalid queries aren't cached
+     */
+    public Map<String, Double> scores(String query, Evaluator evaluator) {
+        if (query == null || query.isBlank()) return null;
+        String key = query.strip();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+
+        //Read before evaluating, a write racing the evaluation leaves the result tagged with a stale version instead of hiding it
+        long current = version.getAsLong();
+        if (entry != null && entry.scores() != null && entry.version() == current) return entry.scores();
+
+        QueryNode node = entry == null ? QueryParser.parse(key) : entry.query();
+        Map<String, Double> scores = evaluator.evaluate(node);
+        Entry updated = new Entry(node, current, scores.size() <= maxResults ? Collections.unmodifiableMap(scores) : null);
+        synchronized (entries) {
+            entries.put(key, updated);
+        }
+        return updated.scores() == null ? scores : updated.scores();
+    }
+
+    @FunctionalInterface
+    public interface Evaluator {
+        Map<String, Double> evaluate(QueryNode query);
+    }
+
+    private record Entry(QueryNode query, long version, Map<String, Double> scores) {}
+}
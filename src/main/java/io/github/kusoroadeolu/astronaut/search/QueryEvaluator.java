@@ -0,0 +1,182 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Evaluates a {@link QueryNode} over the bitmap posting lists of a {@link SnippetSearchIndex} and scores the matches.
+ * </br>AND clauses run cheapest first, each one only evaluated against the docs that survived the previous ones, so an
+ * intersection costs about as much as its most selective clause. NOT clauses always run last as a difference, and content
+ * clauses only decompress the candidates that are still alive at that point.
+ * </br>A single use object, it memoizes leaf lookups for the query it was created for. Callers must hold the index's read lock.
+ */
+final class QueryEvaluator {
+
+    static final double CONTENT_WEIGHT = 1;
+
+    private final Map<SearchField, InvertedIndex> fields;
+    private final TrigramIndex content;
+    private final DocIds docs;
+    private final int fuzzyDistance;
+    private final Function<String, String> contentLoader;
+    private final Map<QueryNode, List<Match>> termMatches = new IdentityHashMap<>();
+    private final Map<QueryNode, RoaringBitmap> resolved = new IdentityHashMap<>();
+    private final Map<QueryNode, ContentMatches> contentMatches = new IdentityHashMap<>();
+
+    QueryEvaluator(Map<SearchField, InvertedIndex> fields, TrigramIndex content, DocIds docs, int fuzzyDistance, Function<String, String> contentLoader) {
+        this.fields = fields;
+        this.content = content;
+        this.docs = docs;
+        this.fuzzyDistance = fuzzyDistance;
+        this.contentLoader = contentLoader;
+    }
+
+    /**
+     * @return the ID of every doc matching the query, mapped to its score
+     */
+    Map<String, Double> search(QueryNode query) {
+        RoaringBitmap matches = evaluate(query, null);
+        Map<Integer, Double> scores = new HashMap<>();
+        matches.forEach((int doc) -> scores.put(doc, 0d));
+        score(query, matches, scores);
+
+        Map<String, Double> results = new HashMap<>(scores.size());
+        scores.forEach((doc, score) -> results.put(docs.id(doc), score));
+        return results;
+    }
+
+    /**
+     * @param candidates the only docs that can match, null for every doc
+     * @return the docs among the candidates that match the node, never one of the index's own bitmaps
+     */
+    RoaringBitmap evaluate(QueryNode node, RoaringBitmap candidates) {
+        return switch (node) {
+            case QueryNode.Terms terms -> candidates == null ? resolve(terms).clone() : RoaringBitmap.and(resolve(terms), candidates);
+            case QueryNode.Content c -> verify(c, candidates);
+            case QueryNode.Or or -> {
+                RoaringBitmap union = new RoaringBitmap();
+                for (QueryNode child : or.children()) union.or(evaluate(child, candidates));
+                yield union;
+            }
+            case QueryNode.Not not -> {
+                RoaringBitmap base = candidates == null ? docs.all() : candidates;
+                yield RoaringBitmap.andNot(base, evaluate(not.child(), base));
+            }
+            case QueryNode.And and -> intersect(and, candidates);
+        };
+    }
+
+    private RoaringBitmap intersect(QueryNode.And and, RoaringBitmap candidates) {
+        List<QueryNode> positives = new ArrayList<>();
+        List<QueryNode> negatives = new ArrayList<>();
+        for (QueryNode child : and.children()) {
+            if (child instanceof QueryNode.Not not) negatives.add(not.child());
+            else positives.add(child);
+        }
+        positives.sort(Comparator.comparingLong(this::estimate));
+
+        RoaringBitmap running = candidates;
+        for (QueryNode child : positives) {
+            running = evaluate(child, running);
+            if (running.isEmpty()) return running;
+        }
+
+        if (running == null) running = docs.all().clone();
+        for (QueryNode child : negatives) {
+            running = RoaringBitmap.andNot(running, evaluate(child, running));
+            if (running.isEmpty()) break;
+        }
+        return running;
+    }
+
+    //Upper bound on the number of docs the node can match, used to order AND clauses
+    private long estimate(QueryNode node) {
+        long universe = docs.all().getLongCardinality();
+        return switch (node) {
+            case QueryNode.Terms terms -> resolve(terms).getLongCardinality();
+            //Verifying content is by far the most expensive clause, only do it once everything else has narrowed the docs down
+            case QueryNode.Content _ -> universe + 1;
+            case QueryNode.Or or -> Math.min(universe, or.children().stream().mapToLong(this::estimate).sum());
+            case QueryNode.Not not -> universe - Math.min(universe, estimate(not.child()));
+            case QueryNode.And and -> and.children().stream().mapToLong(this::estimate).min().orElse(universe);
+        };
+    }
+
+    //The union of the postings of every matching term, cached per leaf
+    private RoaringBitmap resolve(QueryNode.Terms terms) {
+        return resolved.computeIfAbsent(terms, _ -> FastAggregation.or(matches(terms).stream().map(Match::docs).iterator()));
+    }
+
+    private List<Match> matches(QueryNode.Terms terms) {
+        return termMatches.computeIfAbsent(terms, _ -> {
+            List<Match> matches = new ArrayList<>();
+            for (String term : terms.terms()) {
+                for (SearchField field : terms.fields()) {
+                    InvertedIndex index = fields.get(field);
+                    if (!field.fuzzy() || fuzzyDistance <= 0) {
+                        RoaringBitmap exact = index.get(term);
+                        if (!exact.isEmpty()) matches.add(new Match(exact, field.weight()));
+                        continue;
+                    }
+
+                    for (BkTree.TermMatch match : index.fuzzyTerms(term, fuzzyDistance)) {
+                        matches.add(new Match(index.get(match.term()), field.weight() / (1 + match.distance())));
+                    }
+                }
+            }
+            return matches;
+        });
+    }
+
+    private RoaringBitmap verify(QueryNode.Content node, RoaringBitmap candidates) {
+        ContentMatches state = contentMatches.computeIfAbsent(node, _ -> new ContentMatches(content.candidates(node.query().branches())));
+        RoaringBitmap pending = candidates == null ? state.candidates.clone() : RoaringBitmap.and(state.candidates, candidates);
+        pending.andNot(state.checked);
+
+        pending.forEach((int doc) -> {
+            String text = contentLoader.apply(docs.id(doc));
+            if (text != null && node.query().matches(text)) state.matched.add(doc);
+            state.checked.add(doc);
+        });
+
+        return candidates == null ? state.matched.clone() : RoaringBitmap.and(state.matched, candidates);
+    }
+
+    //Adds the score of every positive leaf to the matching docs, NOT-ed leaves don't count
+    private void score(QueryNode node, RoaringBitmap matches, Map<Integer, Double> scores) {
+        switch (node) {
+            case QueryNode.Terms terms -> {
+                for (Match match : matches(terms)) {
+                    RoaringBitmap.and(match.docs(), matches).forEach((int doc) -> scores.merge(doc, match.score(), Double::sum));
+                }
+            }
+            case QueryNode.Content c -> {
+                ContentMatches state = contentMatches.get(c);
+                if (state != null) RoaringBitmap.and(state.matched, matches).forEach((int doc) -> scores.merge(doc, CONTENT_WEIGHT, Double::sum));
+            }
+            case QueryNode.Or or -> or.children().forEach(child -> score(child, matches, scores));
+            case QueryNode.And and -> and.children().forEach(child -> score(child, matches, scores));
+            case QueryNode.Not _ -> {}
+        }
+    }
+
+    private record Match(RoaringBitmap docs, double score) {}
+
+    private static final class ContentMatches {
+        private final RoaringBitmap candidates;
+        private final RoaringBitmap checked = new RoaringBitmap();
+        private final RoaringBitmap matched = new RoaringBitmap();
+
+        private ContentMatches(RoaringBitmap candidates) {
+            this.candidates = candidates;
+        }
+    }
+}
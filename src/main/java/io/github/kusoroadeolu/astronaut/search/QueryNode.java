@@ -0,0 +1,21 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A parsed search query, see {@link QueryParser} for the syntax.
+ */
+public sealed interface QueryNode {
+
+    record And(List<QueryNode> children) implements QueryNode {}
+
+    record Or(List<QueryNode> children) implements QueryNode {}
+
+    record Not(QueryNode child) implements QueryNode {}
+
+    //Matches snippets with any of the (lower-cased) terms in any of the fields
+    record Terms(Set<SearchField> fields, List<String> terms) implements QueryNode {}
+
+    record Content(ContentQuery query) implements QueryNode {}
+}
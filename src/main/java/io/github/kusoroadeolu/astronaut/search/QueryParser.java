@@ -0,0 +1,216 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import io.github.kusoroadeolu.astronaut.exceptions.InvalidQueryException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Parses search queries into a {@link QueryNode} tree.
+ * <pre>
+ * query   := or
+ * or      := and (("OR" | ";") and)*
+ * and     := unary ("AND"? unary)*       adjacent clauses are AND-ed
+ * unary   := "NOT" unary | "(" or ")" | clause
+ * clause  := keyword word+ | ("content:" | "regex:") value | word+
+ * </pre>
+ * Keywords are {@code tag:}, {@code language:}, {@code name:}, {@code method-name:} and {@code class-name:}, a clause matches
+ * any of its words. Bare words match tags, file names, method names and class names.
+ * A {@code content:}/{@code regex:} value is either a double-quoted string or everything up to the next {@code ;}.
+ * </br>Sample - {@code tag: concurrency AND language: java AND NOT (name: test; class-name: legacy)}
+ */
+public final class QueryParser {
+
+    static final Set<SearchField> BARE_FIELDS = EnumSet.of(SearchField.TAG, SearchField.FILE_NAME, SearchField.METHOD_NAME, SearchField.CLASS_NAME);
+    private static final Map<String, SearchField> KEYWORDS = Arrays.stream(SearchField.values())
+            .collect(Collectors.toUnmodifiableMap(SearchField::keyword, Function.identity()));
+    private static final String CONTENT = "content:";
+    private static final String REGEX = "regex:";
+
+    private final List<Token> tokens;
+    private int pos;
+
+    private QueryParser(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * @param query the raw query
+     * @return the parsed query, null if the query is blank
+     */
+    public static QueryNode parse(String query) {
+        if (query == null || query.isBlank()) return null;
+        QueryParser parser = new QueryParser(tokenize(query));
+        QueryNode node = parser.parseOr();
+        if (parser.peek().kind() != Kind.EOF) throw parser.error("Unexpected '%s'".formatted(parser.peek().text()));
+        return node;
+    }
+
+    private QueryNode parseOr() {
+        List<QueryNode> children = new ArrayList<>();
+        skipSeparators();
+        children.add(parseAnd());
+        while (peek().kind() == Kind.OR) {
+            skipSeparators();
+            //Trailing separators, e.g. "tag: java;"
+            if (peek().kind() == Kind.EOF || peek().kind() == Kind.RPAREN) break;
+            children.add(parseAnd());
+        }
+        return children.size() == 1 ? children.getFirst() : new QueryNode.Or(children);
+    }
+
+    private QueryNode parseAnd() {
+        List<QueryNode> children = new ArrayList<>();
+        children.add(parseUnary());
+        while (peek().kind() == Kind.AND || startsUnary(peek())) {
+            if (peek().kind() == Kind.AND) next();
+            children.add(parseUnary());
+        }
+        return children.size() == 1 ? children.getFirst() : new QueryNode.And(children);
+    }
+
+    private QueryNode parseUnary() {
+        Token token = next();
+        return switch (token.kind()) {
+            case NOT -> new QueryNode.Not(parseUnary());
+            case LPAREN -> {
+                QueryNode node = parseOr();
+                if (next().kind() != Kind.RPAREN) throw error("Missing ')'");
+                yield node;
+            }
+            case KEYWORD -> parseClause(token.text());
+            case WORD -> {
+                pos--;
+                yield new QueryNode.Terms(BARE_FIELDS, words());
+            }
+            default -> throw error("Expected a search term but got '%s'".formatted(token.text()));
+        };
+    }
+
+    private QueryNode parseClause(String keyword) {
+        if (keyword.equals(CONTENT) || keyword.equals(REGEX)) {
+            Token value = next();
+            if (value.kind() != Kind.VALUE || value.text().isEmpty()) throw error("'%s' needs a value".formatted(keyword));
+            return new QueryNode.Content(keyword.equals(CONTENT) ? ContentQuery.literal(value.text()) : ContentQuery.regex(value.text()));
+        }
+
+        List<String> words = words();
+        if (words.isEmpty()) throw error("'%s' needs at least one term".formatted(keyword));
+        return new QueryNode.Terms(EnumSet.of(KEYWORDS.get(keyword)), words);
+    }
+
+    private List<String> words() {
+        List<String> words = new ArrayList<>();
+        while (peek().kind() == Kind.WORD) words.add(next().text().toLowerCase());
+        return words;
+    }
+
+    private boolean startsUnary(Token token) {
+        return switch (token.kind()) {
+            case NOT, LPAREN, KEYWORD, WORD -> true;
+            default -> false;
+        };
+    }
+
+    private void skipSeparators() {
+        while (peek().kind() == Kind.OR) next();
+    }
+
+    private Token peek() {
+        return tokens.get(pos);
+    }
+
+    private Token next() {
+        Token token = tokens.get(pos);
+        if (token.kind() != Kind.EOF) pos++;
+        return token;
+    }
+
+    private InvalidQueryException error(String message) {
+        return new InvalidQueryException("Invalid query: %s".formatted(message));
+    }
+
+    private static List<Token> tokenize(String query) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        int n = query.length();
+        while (i < n) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+
+            if (c == '(' || c == ')' || c == ';') {
+                tokens.add(switch (c) {
+                    case '(' -> new Token(Kind.LPAREN, "(");
+                    case ')' -> new Token(Kind.RPAREN, ")");
+                    default -> new Token(Kind.OR, ";");
+                });
+                i++;
+                continue;
+            }
+
+            int start = i;
+            while (i < n && !Character.isWhitespace(query.charAt(i)) && "();".indexOf(query.charAt(i)) == -1) i++;
+            String word = query.substring(start, i);
+
+            switch (word) {
+                case "AND" -> tokens.add(new Token(Kind.AND, word));
+                case "OR" -> tokens.add(new Token(Kind.OR, word));
+                case "NOT" -> tokens.add(new Token(Kind.NOT, word));
+                default -> i = keywordOrWord(query, start, word, tokens);
+            }
+        }
+
+        tokens.add(new Token(Kind.EOF, "end of query"));
+        return tokens;
+    }
+
+    //Splits "tag:java" into a keyword and a word, and reads the raw value of content/regex clauses. Returns where to continue from
+    private static int keywordOrWord(String query, int start, String word, List<Token> tokens) {
+        int colon = word.indexOf(':');
+        String keyword = colon == -1 ? null : word.substring(0, colon + 1).toLowerCase();
+        if (keyword == null || !(KEYWORDS.containsKey(keyword) || keyword.equals(CONTENT) || keyword.equals(REGEX))) {
+            tokens.add(new Token(Kind.WORD, word));
+            return start + word.length();
+        }
+
+        tokens.add(new Token(Kind.KEYWORD, keyword));
+        int i = start + colon + 1;
+        if (KEYWORDS.containsKey(keyword)) {
+            if (colon + 1 < word.length()) tokens.add(new Token(Kind.WORD, word.substring(colon + 1)));
+            return start + word.length();
+        }
+
+        while (i < query.length() && Character.isWhitespace(query.charAt(i))) i++;
+        if (i < query.length() && query.charAt(i) == '"') return quotedValue(query, i, tokens);
+
+        int end = query.indexOf(';', i);
+        if (end == -1) end = query.length();
+        tokens.add(new Token(Kind.VALUE, query.substring(i, end).strip()));
+        return end;
+    }
+
+    private static int quotedValue(String query, int quote, List<Token> tokens) {
+        StringBuilder value = new StringBuilder();
+        int i = quote + 1;
+        while (i < query.length() && query.charAt(i) != '"') {
+            if (query.charAt(i) == '\\' && i + 1 < query.length() && query.charAt(i + 1) == '"') i++;
+            value.append(query.charAt(i++));
+        }
+        if (i >= query.length()) throw new InvalidQueryException("Invalid query: unterminated quote");
+        tokens.add(new Token(Kind.VALUE, value.toString()));
+        return i + 1;
+    }
+
+    private enum Kind { LPAREN, RPAREN, AND, OR, NOT, KEYWORD, WORD, VALUE, EOF }
+
+    private record Token(Kind kind, String text) {}
+}
@@ -0,0 +1,208 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pulls the literal strings a regex match is guaranteed to contain out of a (syntactically valid) java regex.
+ * </br>The extraction is conservative: groups, char classes and escapes it doesn't understand just end the current literal,
+ * so the result can be weaker than the regex but never stronger. Top-level alternations produce one list of literals per branch.
+ */
+final class RegexLiterals {
+
+    private RegexLiterals() {}
+
+    /**
+     * @return one list of required literals per top-level branch of the regex
+     */
+    static List<List<String>> extract(String regex) {
+        //Comments mode makes whitespace insignificant, not worth modelling
+        if (regex.matches("(?s).*\\(\\?[a-zA-Z]*x.*")) return List.of(List.of());
+
+        List<List<String>> branches = new ArrayList<>();
+        for (String branch : splitTopLevel(regex)) branches.add(literalsOf(branch));
+        return branches;
+    }
+
+    private static List<String> splitTopLevel(String regex) {
+        List<String> branches = new ArrayList<>();
+        int depth = 0, start = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i = skipEscape(regex, i) - 1;
+            } else if (c == '[') {
+                i = skipClass(regex, i) - 1;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '|' && depth == 0) {
+                branches.add(regex.substring(start, i));
+                start = i + 1;
+            }
+        }
+        branches.add(regex.substring(start));
+        return branches;
+    }
+
+    private static List<String> literalsOf(String branch) {
+        List<String> literals = new ArrayList<>();
+        StringBuilder run = new StringBuilder();
+        int i = 0;
+        while (i < branch.length()) {
+            char c = branch.charAt(i);
+            int next;
+            Character literal = null;
+
+            if (c == '\\') {
+                next = skipEscape(branch, i);
+                if (branch.startsWith("\\Q", i)) {
+                    //Everything up to \E is quoted, treat all but the last char as a plain run
+                    int end = branch.indexOf("\\E", i + 2);
+                    String quoted = branch.substring(i + 2, end == -1 ? branch.length() : end);
+                    if (!quoted.isEmpty()) {
+                        run.append(quoted, 0, quoted.length() - 1);
+                        literal = quoted.charAt(quoted.length() - 1);
+                    }
+                } else if (next == i + 2 && !Character.isLetterOrDigit(branch.charAt(i + 1))) {
+                    literal = branch.charAt(i + 1);
+                }
+            } else if (c == '[') {
+                next = skipClass(branch, i);
+            } else if (c == '(') {
+                next = skipGroup(branch, i);
+            } else if (c == '.' || c == '^' || c == '$') {
+                next = i + 1;
+            } else {
+                next = i + 1;
+                literal = c;
+            }
+
+            int afterQuantifier = skipQuantifier(branch, next);
+            boolean quantified = afterQuantifier != next;
+            boolean optional = quantified && isOptional(branch, next);
+
+            if (literal != null && !optional) run.append(literal);
+            //Anything that isn't a single mandatory char ends the run, so does a repeated char (it's the last one we know of)
+            if (literal == null || quantified) flush(run, literals);
+
+            i = afterQuantifier;
+        }
+
+        flush(run, literals);
+        return literals;
+    }
+
+    private static void flush(StringBuilder run, List<String> literals) {
+        if (run.length() >= Trigrams.LENGTH) literals.add(run.toString());
+        run.setLength(0);
+    }
+
+    //Index just past the escape sequence starting at i
+    private static int skipEscape(String s, int i) {
+        if (i + 1 >= s.length()) return s.length();
+        char c = s.charAt(i + 1);
+        int j = i + 2;
+        switch (c) {
+            case 'Q' -> {
+                int end = s.indexOf("\\E", j);
+                return end == -1 ? s.length() : end + 2;
+            }
+            case 'p', 'P', 'x', 'N', 'k' -> {
+                if (j < s.length() && (s.charAt(j) == '{' || s.charAt(j) == '<')) {
+                    int end = s.indexOf(s.charAt(j) == '{' ? '}' : '>', j);
+                    return end == -1 ? s.length() : end + 1;
+                }
+                return Math.min(s.length(), c == 'x' ? j + 2 : j + 1);
+            }
+            case 'u' -> {
+                return Math.min(s.length(), j + 4);
+            }
+            case 'c' -> {
+                return Math.min(s.length(), j + 1);
+            }
+            case '0' -> {
+                while (j < s.length() && j < i + 5 && s.charAt(j) >= '0' && s.charAt(j) <= '7') j++;
+                return j;
+            }
+            default -> {
+                return j;
+            }
+        }
+    }
+
+    //Index just past the char class starting at i, nested classes included
+    private static int skipClass(String s, int i) {
+        int depth = 0;
+        int j = i;
+        while (j < s.length()) {
+            char c = s.charAt(j);
+            if (c == '\\') {
+                j = skipEscape(s, j);
+                continue;
+            }
+            if (c == '[') {
+                depth++;
+                //A ] straight after [ or [^ is a literal
+                if (j + 1 < s.length() && s.charAt(j + 1) == '^') j++;
+                if (j + 1 < s.length() && s.charAt(j + 1) == ']') j++;
+            } else if (c == ']' && --depth == 0) {
+                return j + 1;
+            }
+            j++;
+        }
+        return s.length();
+    }
+
+    //Index just past the group starting at i
+    private static int skipGroup(String s, int i) {
+        int depth = 0;
+        int j = i;
+        while (j < s.length()) {
+            char c = s.charAt(j);
+            if (c == '\\') {
+                j = skipEscape(s, j);
+                continue;
+            }
+            if (c == '[') {
+                j = skipClass(s, j);
+                continue;
+            }
+            if (c == '(') depth++;
+            else if (c == ')' && --depth == 0) return j + 1;
+            j++;
+        }
+        return s.length();
+    }
+
+    //Index just past the quantifier (and its lazy/possessive suffix) at i, i itself if there's none
+    private static int skipQuantifier(String s, int i) {
+        if (i >= s.length()) return i;
+        char c = s.charAt(i);
+        int j;
+        if (c == '?' || c == '*' || c == '+') {
+            j = i + 1;
+        } else if (c == '{') {
+            int end = s.indexOf('}', i);
+            if (end == -1) return i;
+            j = end + 1;
+        } else {
+            return i;
+        }
+
+        if (j < s.length() && (s.charAt(j) == '?' || s.charAt(j) == '+')) j++;
+        return j;
+    }
+
+    //Whether the quantifier at i allows zero repetitions
+    private static boolean isOptional(String s, int i) {
+        char c = s.charAt(i);
+        if (c == '?' || c == '*') return true;
+        if (c == '{') {
+            String min = s.substring(i + 1, s.indexOf('}', i)).split(",", -1)[0].trim();
+            return min.isEmpty() || Integer.parseInt(min) == 0;
+        }
+        return false;
+    }
+}
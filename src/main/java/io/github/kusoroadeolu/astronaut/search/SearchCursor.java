@@ -0,0 +1,33 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import io.github.kusoroadeolu.astronaut.exceptions.InvalidQueryException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * The position of the last result of a search page, results are ordered by score (highest first) then by ID.
+ * </br>Cursors are opaque to clients, they're handed out as url-safe base64.
+ */
+public record SearchCursor(double score, String id) {
+
+    public static SearchCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int split = decoded.indexOf('|');
+            return new SearchCursor(Double.parseDouble(decoded.substring(0, split)), decoded.substring(split + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new InvalidQueryException("Invalid search cursor: %s".formatted(cursor), e);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString("%s|%s".formatted(score, id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    //Whether a result with this score and ID comes after the cursor
+    boolean precedes(double otherScore, String otherId) {
+        int byScore = Double.compare(otherScore, score);
+        return byScore < 0 || (byScore == 0 && otherId.compareTo(id) > 0);
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import io.github.kusoroadeolu.astronaut.entities.SnippetIndex;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The snippet fields that are kept in the {@link SnippetSearchIndex}.
+ * </br>Each field knows how to pull its raw terms off a {@link SnippetIndex}, class and method names also add the words they're made of.
+ * Terms are always lower-cased so lookups never have to normalize what's already in the index.
+ * The keyword is how queries refer to the field, the weight is how much a match on the field counts when ranking.
+ */
+public enum SearchField {
+    TAG("tag:", 2),
+    CLASS_NAME("class-name:", 4),
+    METHOD_NAME("method-name:", 3),
+    FILE_NAME("name:", 1),
+    LANGUAGE("language:", 0.5);
+
+    private final String keyword;
+    private final double weight;
+
+    SearchField(String keyword, double weight) {
+        this.keyword = keyword;
+        this.weight = weight;
+    }
+
+    //The query keyword that searches this field
+    public String keyword() {
+        return keyword;
+    }
+
+    public double weight() {
+        return weight;
+    }
+
+    //Languages are a closed set of names, a typo shouldn't match a different language
+    public boolean fuzzy() {
+        return this != LANGUAGE;
+    }
+
+    public Set<String> termsOf(SnippetIndex snippet) {
+        return switch (this) {
+            case TAG -> normalize(snippet.getTags());
+            case CLASS_NAME -> identifiers(snippet.getClassNames());
+            case METHOD_NAME -> identifiers(snippet.getMethodNames());
+            case FILE_NAME -> normalize(snippet.getFileName());
+            case LANGUAGE -> normalize(snippet.getLanguage());
+        };
+    }
+
+    private static Set<String> normalize(Collection<String> terms) {
+        if (terms == null || terms.isEmpty()) return Set.of();
+        Set<String> normalized = new HashSet<>();
+        for (String term : terms) {
+            if (term != null && !term.isBlank()) normalized.add(term.trim().toLowerCase());
+        }
+        return normalized;
+    }
+
+    //The full names plus the words they're made of, see Identifiers
+    private static Set<String> identifiers(Collection<String> names) {
+        if (names == null || names.isEmpty()) return Set.of();
+        Set<String> terms = new HashSet<>();
+        for (String name : names) {
+            if (name != null) Identifiers.forEachTerm(name, terms::add);
+        }
+        return terms;
+    }
+
+    private static Set<String> normalize(String term) {
+        if (term == null || term.isBlank()) return Set.of();
+        return Set.of(term.trim().toLowerCase());
+    }
+}
@@ -0,0 +1,290 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import io.github.kusoroadeolu.astronaut.entities.SnippetIndex;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static io.github.kusoroadeolu.astronaut.CompressionUtils.decompress;
+
+/**
+ * Maintains an inverted index (term -> doc bitmap) per {@link SearchField}, a trigram index and MinHash signatures over snippet content,
+ * and a BM25 index over descriptions and names for free-text search.
+ * </br>Snippet IDs are mapped to dense doc numbers so every posting list is a compressed bitmap. The index is kept up to date
+ * incrementally by the {@link io.github.kusoroadeolu.astronaut.SnippetCache}, so queries only touch the vocabulary of a field
+ * and the postings of the terms that matched, never every snippet.
+ */
+public class SnippetSearchIndex {
+
+    private final Map<SearchField, InvertedIndex> fields;
+    private final Map<Integer, Map<SearchField, Set<String>>> indexedTerms; //Forward index, used to drop stale postings
+    private final TrigramIndex content;
+    private final Bm25Index text;
+    private final LshIndex duplicates;
+    private final DocIds docs;
+    private final ReadWriteLock lock;
+
+    public SnippetSearchIndex() {
+        this.fields = new EnumMap<>(SearchField.class);
+        for (SearchField field : SearchField.values()) fields.put(field, new InvertedIndex());
+        this.indexedTerms = new HashMap<>();
+        this.content = new TrigramIndex();
+        this.text = new Bm25Index();
+        this.duplicates = new LshIndex();
+        this.docs = new DocIds();
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Indexes the snippet, replacing whatever was previously indexed under the same ID, see {@link #prepare(SnippetIndex, Supplier)}.
+     * @param snippet the snippet to index
+     * @param compressedContent loads the snippet's compressed content, only called when the content changed
+     */
+    public void index(SnippetIndex snippet, Supplier<byte[]> compressedContent) {
+        index(prepare(snippet, compressedContent));
+    }
+
+    /**
+     * Does the costly part of indexing a snippet without holding any lock, so callers can run it outside their own locks too.
+     * </br>The content is only decompressed, split into trigrams and re-signed for near-duplicate detection when its hash differs
+     * from the one it was last indexed with.
+     * @param snippet the snippet to index
+     * @param compressedContent loads the snippet's compressed content, only called when the content changed
+     * @return what {@link #index(Prepared)} adds to the index
+     */
+    public Prepared prepare(SnippetIndex snippet, Supplier<byte[]> compressedContent) {
+        ContentTerms contentTerms = contentChanged(snippet) ? ContentTerms.of(compressedContent) : null;
+        return new Prepared(snippet, contentTerms, Bm25Index.termsOf(snippet), compressedContent);
+    }
+
+    /**
+     * Indexes a prepared snippet, replacing whatever was previously indexed under the same ID.
+     * @param prepared what {@link #prepare(SnippetIndex, Supplier)} returned
+     */
+    public void index(Prepared prepared) {
+        SnippetIndex snippet = prepared.snippet;
+        lock.writeLock().lock();
+        try {
+            int doc = docs.assign(snippet.getId());
+            ContentTerms contentTerms = prepared.contentTerms;
+            //Different content was indexed since this was prepared, rare enough to load it under the lock
+            if (contentTerms == null && contentChanged(doc, snippet)) contentTerms = ContentTerms.of(prepared.compressedContent);
+
+            unindexTerms(doc);
+            Map<SearchField, Set<String>> terms = new EnumMap<>(SearchField.class);
+            for (SearchField field : SearchField.values()) {
+                Set<String> fieldTerms = field.termsOf(snippet);
+                for (String term : fieldTerms) fields.get(field).add(term, doc);
+                terms.put(field, fieldTerms);
+            }
+            indexedTerms.put(doc, terms);
+            text.add(doc, prepared.textTerms);
+            if (contentTerms != null) {
+                content.add(doc, snippet.getContentHash(), contentTerms.trigrams());
+                duplicates.add(doc, contentTerms.signature());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            int doc = docs.get(id);
+            if (doc == -1) return;
+            unindexTerms(doc);
+            content.remove(doc);
+            text.remove(doc);
+            duplicates.remove(doc);
+            docs.release(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            fields.values().forEach(InvertedIndex::clear);
+            indexedTerms.clear();
+            content.clear();
+            text.clear();
+            duplicates.clear();
+            docs.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs the query over the index, see {@link QueryEvaluator} for how the plan is ordered.
+     * @param query the parsed query
+     * @param fuzzyDistance the max levenshtein distance a term can be from a query term, 0 for exact lookups only
+     * @param contentLoader loads the decompressed content of a snippet by ID, only called for content clause candidates
+     * @return the ID of every matching snippet, mapped to its score
+     */
+    public Map<String, Double> search(QueryNode query, int fuzzyDistance, Function<String, String> contentLoader) {
+        lock.readLock().lock();
+        try {
+            return new QueryEvaluator(fields, content, docs, fuzzyDistance, contentLoader).search(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks snippets against free text with BM25 over their descriptions, file names and identifiers, see {@link Bm25Index}.
+     * @param query the free text, split into words like identifiers are
+     * @param k the max number of results
+     * @param after only results ranked after this cursor are considered, null to start from the top
+     * @return up to {@code k} results, best first
+     */
+    public List<TopK.ScoredId> searchText(String query, int k, SearchCursor after) {
+        List<String> terms = Bm25Index.queryTerms(query);
+        lock.readLock().lock();
+        try {
+            return text.search(terms, k, after, docs::id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds snippets whose content is a near-duplicate of the given snippet's, see {@link LshIndex}.
+     * @param id the snippet's ID
+     * @param minSimilarity the lowest estimated similarity, between 0 and 1, to return
+     * @param limit the max number of results
+     * @return the similar snippets, most similar first, empty if the snippet isn't indexed or is too short to compare
+     */
+    public List<Similarity> similar(String id, double minSimilarity, int limit) {
+        lock.readLock().lock();
+        try {
+            int doc = docs.get(id);
+            if (doc == -1) return List.of();
+            return duplicates.similar(doc, minSimilarity, limit).stream()
+                    .map(s -> new Similarity(docs.id(s.doc()), s.similarity()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts how many snippets have each value of the given fields, either across the whole index or within a query's matches.
+     * </br>Counts come straight off the posting lists, a query's counts are the intersection cardinality of each posting list with
+     * the matching docs, so this costs O(distinct values) rather than O(snippets).
+     * @param facetFields the fields to count
+     * @param query the query to count within, null for every snippet
+     * @param fuzzyDistance the max levenshtein distance a term can be from a query term
+     * @param contentLoader loads the decompressed content of a snippet by ID, only called for content clause candidates
+     * @return each field's values mapped to the number of snippets they appear in
+     */
+    public Map<SearchField, Map<String, Integer>> facets(Set<SearchField> facetFields, QueryNode query, int fuzzyDistance, Function<String, String> contentLoader) {
+        Map<SearchField, Map<String, Integer>> facets = new EnumMap<>(SearchField.class);
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = query == null ? null : new QueryEvaluator(fields, content, docs, fuzzyDistance, contentLoader).evaluate(query, null);
+            for (SearchField field : facetFields) {
+                InvertedIndex index = fields.get(field);
+                facets.put(field, matches == null ? index.counts() : index.counts(matches));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return facets;
+    }
+
+    /**
+     * Completes a prefix against the vocabulary of the fields bare query words search.
+     * @param prefix the prefix, matched case-insensitively
+     * @param limit the max number of suggestions
+     * @return the completions, the terms found in the most snippets first
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String normalized = prefix.trim().toLowerCase();
+        List<Suggestion> suggestions = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            //Each field's top `limit` is enough, anything past it can't make the merged top `limit` either
+            for (SearchField field : QueryParser.BARE_FIELDS) {
+                for (SuggestionTrie.Completion c : fields.get(field).complete(normalized, limit)) {
+                    suggestions.add(new Suggestion(c.term(), field, c.count()));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        suggestions.sort(Comparator.comparingInt(Suggestion::count).reversed()
+                .thenComparing(s -> s.field().weight(), Comparator.reverseOrder())
+                .thenComparing(Suggestion::term));
+        return suggestions.size() > limit ? List.copyOf(suggestions.subList(0, limit)) : suggestions;
+    }
+
+    /**
+     * A snippet with its content-derived terms already computed, see {@link #prepare(SnippetIndex, Supplier)}.
+     */
+    public static final class Prepared {
+        private final SnippetIndex snippet;
+        private final ContentTerms contentTerms; //Null when the content didn't change
+        private final Map<String, Integer> textTerms;
+        private final Supplier<byte[]> compressedContent;
+
+        private Prepared(SnippetIndex snippet, ContentTerms contentTerms, Map<String, Integer> textTerms, Supplier<byte[]> compressedContent) {
+            this.snippet = snippet;
+            this.contentTerms = contentTerms;
+            this.textTerms = textTerms;
+            this.compressedContent = compressedContent;
+        }
+
+        public SnippetIndex snippet() {
+            return snippet;
+        }
+    }
+
+    private record ContentTerms(long[] trigrams, int[] signature) {
+        //Null when there's no content to load
+        static ContentTerms of(Supplier<byte[]> compressedContent) {
+            byte[] compressed = compressedContent.get();
+            if (compressed == null) return null;
+            String content = decompress(compressed);
+            return new ContentTerms(Trigrams.of(content), MinHash.signature(content));
+        }
+    }
+
+    public record Suggestion(String term, SearchField field, int count) {}
+
+    public record Similarity(String id, double similarity) {}
+
+    private boolean contentChanged(SnippetIndex snippet) {
+        lock.readLock().lock();
+        try {
+            return contentChanged(docs.get(snippet.getId()), snippet);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean contentChanged(int doc, SnippetIndex snippet) {
+        if (!snippet.hasContent() && snippet.getContentHash() == null) return false;
+        String indexedHash = doc == -1 ? null : content.hashOf(doc);
+        return indexedHash == null || !indexedHash.equals(snippet.getContentHash());
+    }
+
+    private void unindexTerms(int doc) {
+        Map<SearchField, Set<String>> terms = indexedTerms.remove(doc);
+        if (terms == null) return;
+        terms.forEach((field, fieldTerms) -> fieldTerms.forEach(t -> fields.get(field).remove(t, doc)));
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A prefix trie over a field's vocabulary, every term carries the number of snippets it appears in.
+ * </br>Each node also tracks the highest count in its subtree, so the top completions of a prefix are found best-first,
+ * only expanding subtrees that can still beat what's been found, instead of walking every term under the prefix.
+ * Children are kept in sorted arrays to keep nodes small. Not thread safe on its own, {@link SnippetSearchIndex} guards every access.
+ */
+final class SuggestionTrie {
+
+    private static final Comparator<Candidate> BEST_FIRST = Comparator.comparingInt(Candidate::bound).reversed()
+            .thenComparing(Candidate::text);
+
+    private Node root = new Node();
+
+    //Adds delta to the term's count, a term whose count drops to 0 is removed
+    void adjust(String term, int delta) {
+        Node[] path = new Node[term.length() + 1];
+        path[0] = root;
+        Node node = root;
+        for (int i = 0; i < term.length(); i++) {
+            node = node.childOrCreate(term.charAt(i));
+            path[i + 1] = node;
+        }
+        node.count = Math.max(0, node.count + delta);
+
+        for (int i = term.length(); i >= 0; i--) {
+            Node current = path[i];
+            current.recomputeMax();
+            if (i > 0 && current.max == 0) path[i - 1].removeChild(term.charAt(i - 1));
+        }
+    }
+
+    /**
+     * @param prefix the lower-cased prefix
+     * @param limit the max number of completions
+     * @return the terms starting with the prefix, most common first, ties broken alphabetically
+     */
+    List<Completion> complete(String prefix, int limit) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) node = node.child(prefix.charAt(i));
+        if (node == null || node.max == 0 || limit <= 0) return List.of();
+
+        List<Completion> completions = new ArrayList<>(Math.min(limit, 16));
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(BEST_FIRST);
+        queue.add(new Candidate(node, prefix, node.max, false));
+        while (!queue.isEmpty() && completions.size() < limit) {
+            Candidate candidate = queue.poll();
+            Node current = candidate.node();
+            if (candidate.terminal()) {
+                completions.add(new Completion(candidate.text(), current.count));
+                continue;
+            }
+
+            if (current.count > 0) queue.add(new Candidate(current, candidate.text(), current.count, true));
+            for (int i = 0; i < current.size; i++) {
+                Node child = current.children[i];
+                queue.add(new Candidate(child, candidate.text() + current.keys[i], child.max, false));
+            }
+        }
+        return completions;
+    }
+
+    void clear() {
+        root = new Node();
+    }
+
+    record Completion(String term, int count) {}
+
+    private record Candidate(Node node, String text, int bound, boolean terminal) {}
+
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private int size;
+        private int count;
+        private int max;
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, 0, size, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node childOrCreate(char c) {
+            int i = Arrays.binarySearch(keys, 0, size, c);
+            if (i >= 0) return children[i];
+
+            int at = -i - 1;
+            if (size == keys.length) {
+                int capacity = Math.max(2, size * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(keys, at, keys, at + 1, size - at);
+            System.arraycopy(children, at, children, at + 1, size - at);
+            Node child = new Node();
+            keys[at] = c;
+            children[at] = child;
+            size++;
+            return child;
+        }
+
+        void removeChild(char c) {
+            int i = Arrays.binarySearch(keys, 0, size, c);
+            if (i < 0) return;
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            System.arraycopy(children, i + 1, children, i, size - i - 1);
+            children[--size] = null;
+        }
+
+        void recomputeMax() {
+            int m = count;
+            for (int i = 0; i < size; i++) m = Math.max(m, children[i].max);
+            max = m;
+        }
+    }
+}
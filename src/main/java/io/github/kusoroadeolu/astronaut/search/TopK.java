@@ -0,0 +1,52 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Selects the best {@code k} scored IDs after an optional cursor with a bounded min-heap,
+ * so picking a page costs {@code O(n log k)} and only the page itself ever gets sorted.
+ */
+public final class TopK {
+
+    //Best first: highest score, then lowest ID so ties have a stable order for cursors
+    public static final Comparator<ScoredId> RANKING = Comparator.comparingDouble(ScoredId::score).reversed()
+            .thenComparing(ScoredId::id);
+
+    private TopK() {}
+
+    /**
+     * @param scores the score of every matching ID
+     * @param k the max number of results to return
+     * @param after only results ranked after this cursor are considered, null to start from the top
+     * @return up to {@code k} results, best first
+     */
+    public static List<ScoredId> select(Map<String, Double> scores, int k, SearchCursor after) {
+        //The root is the worst result kept so far, so it's the one to evict
+        PriorityQueue<ScoredId> heap = new PriorityQueue<>(k + 1, RANKING.reversed());
+        for (Map.Entry<String, Double> e : scores.entrySet()) {
+            if (after != null && !after.precedes(e.getValue(), e.getKey())) continue;
+            ScoredId candidate = new ScoredId(e.getKey(), e.getValue());
+            if (heap.size() < k) {
+                heap.offer(candidate);
+            } else if (RANKING.compare(candidate, heap.peek()) < 0) {
+                heap.poll();
+                heap.offer(candidate);
+            }
+        }
+
+        List<ScoredId> results = new ArrayList<>(heap);
+        results.sort(RANKING);
+        return results;
+    }
+
+    public record ScoredId(String id, double score) {
+
+        public SearchCursor cursor() {
+            return new SearchCursor(score, id);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A trigram -> doc bitmap index over the decompressed content of every snippet, used to narrow content and regex searches
+ * down to the few snippets that could match before anything gets decompressed.
+ * </br>Not thread safe on its own, {@link SnippetSearchIndex} guards every access.
+ */
+final class TrigramIndex {
+
+    private final Map<Long, RoaringBitmap> postings = new HashMap<>();
+    private final Map<Integer, Indexed> indexed = new HashMap<>();
+
+    //The content hash the doc was last indexed with, null if it never was
+    String hashOf(int doc) {
+        Indexed i = indexed.get(doc);
+        return i == null ? null : i.contentHash();
+    }
+
+    void add(int doc, String contentHash, long[] trigrams) {
+        remove(doc);
+        for (long t : trigrams) postings.computeIfAbsent(t, _ -> new RoaringBitmap()).add(doc);
+        indexed.put(doc, new Indexed(contentHash, trigrams));
+    }
+
+    void remove(int doc) {
+        Indexed i = indexed.remove(doc);
+        if (i == null) return;
+        for (long t : i.trigrams()) {
+            RoaringBitmap docs = postings.get(t);
+            if (docs == null) continue;
+            docs.remove(doc);
+            if (docs.isEmpty()) postings.remove(t);
+        }
+    }
+
+    /**
+     * @param branches alternatives, each a list of literals that must all appear in the content
+     * @return the docs that contain every trigram of at least one branch
+     */
+    RoaringBitmap candidates(List<List<String>> branches) {
+        RoaringBitmap candidates = new RoaringBitmap();
+        for (List<String> literals : branches) candidates.or(branchCandidates(literals));
+        return candidates;
+    }
+
+    void clear() {
+        postings.clear();
+        indexed.clear();
+    }
+
+    private RoaringBitmap branchCandidates(List<String> literals) {
+        List<RoaringBitmap> lists = literals.stream()
+                .flatMapToLong(l -> Arrays.stream(Trigrams.of(l)))
+                .distinct()
+                .mapToObj(t -> postings.getOrDefault(t, new RoaringBitmap()))
+                .sorted(Comparator.comparingInt(RoaringBitmap::getCardinality))
+                .toList();
+        if (lists.isEmpty()) return new RoaringBitmap();
+
+        //Intersect starting from the rarest trigram
+        RoaringBitmap result = lists.getFirst().clone();
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) result.and(lists.get(i));
+        return result;
+    }
+
+    private record Indexed(String contentHash, long[] trigrams) {}
+}
@@ -0,0 +1,32 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import java.util.Arrays;
+
+/**
+ * Packs every case-insensitive run of three chars of a text into a {@code long}, the unit the content index is keyed on.
+ */
+final class Trigrams {
+
+    static final int LENGTH = 3;
+
+    private Trigrams() {}
+
+    /**
+     * @return the distinct trigrams of the text, sorted
+     */
+    static long[] of(String text) {
+        String lower = text.toLowerCase();
+        if (lower.length() < LENGTH) return new long[0];
+
+        long[] trigrams = new long[lower.length() - LENGTH + 1];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = pack(lower.charAt(i), lower.charAt(i + 1), lower.charAt(i + 2));
+        }
+
+        return Arrays.stream(trigrams).sorted().distinct().toArray();
+    }
+
+    private static long pack(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+}
@@ -0,0 +1,182 @@
+package io.github.kusoroadeolu.astronaut.services;
+
+import io.github.kusoroadeolu.astronaut.entities.SnippetIndex;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The binary snapshot format, selected with {@code index.format: binary}.
+ * <pre>
+ * header   magic "ASTX" | version (int) | snippet count (int) | reserved (int) | metadata offset (long) | blob offset (long)
+ * metadata per snippet: id, file name, description, language, tags, class names, method names, created at, updated at,
+ *          content hash, extractor version (int, -1 for null, since version 2), ETag and Last-Modified (since version 3), then up to
+ *          version 3 the content's offset within the blob section (long) and its length (int)
+ * blobs    up to version 3, the compressed, codec-tagged content of every snippet, back to back
+ * </pre>
+ * Strings are an int byte length (-1 for null) followed by UTF-8 bytes, sets are an int size (-1 for null) followed by strings.
+ * </br>Since version 4 content is only referenced by its hash, the {@link io.github.kusoroadeolu.astronaut.ContentStore} holds it,
+ * so the blob section is empty and the blob offset is the end of the file. Older files are still read, their blobs become the
+ * snippets' inline content and are moved to the content store when the snippets are cached.
+ * </br>The file is read eagerly in one pass, nothing is left mapped, so it can be replaced by the next compaction (a mapped file can't be on Windows).
+ */
+final class BinaryIndexFile {
+
+    static final int MAGIC = 0x41535458; //ASTX
+    static final int VERSION = 4;
+    static final int HEADER_SIZE = 32;
+
+    private BinaryIndexFile() {}
+
+    static boolean isBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            return channel.read(magic, 0) == Integer.BYTES && magic.flip().getInt() == MAGIC;
+        }
+    }
+
+    static void write(OutputStream out, Collection<SnippetIndex> snippets) throws IOException {
+        ByteArrayOutputStream metadataBytes = new ByteArrayOutputStream();
+        DataOutputStream metadata = new DataOutputStream(metadataBytes);
+        for (SnippetIndex snippet : snippets) {
+            writeString(metadata, snippet.getId());
+            writeString(metadata, snippet.getFileName());
+            writeString(metadata, snippet.getDescription());
+            writeString(metadata, snippet.getLanguage());
+            writeSet(metadata, snippet.getTags());
+            writeSet(metadata, snippet.getClassNames());
+            writeSet(metadata, snippet.getMethodNames());
+            writeString(metadata, snippet.getCreatedAt());
+            writeString(metadata, snippet.getUpdatedAt());
+            writeString(metadata, snippet.getContentHash());
+            metadata.writeInt(snippet.getExtractorVersion() == null ? -1 : snippet.getExtractorVersion());
+            writeString(metadata, snippet.getEtag());
+            writeString(metadata, snippet.getLastModified());
+        }
+        metadata.flush();
+
+        DataOutputStream file = new DataOutputStream(out);
+        file.writeInt(MAGIC);
+        file.writeInt(VERSION);
+        file.writeInt(snippets.size());
+        file.writeInt(0);
+        file.writeLong(HEADER_SIZE);
+        file.writeLong(HEADER_SIZE + metadataBytes.size());
+        metadataBytes.writeTo(file);
+        file.flush();
+    }
+
+    static List<SnippetIndex> read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) throw new IOException("Not a binary index: %s".formatted(path));
+            int version = header.getInt();
+            if (version < 1 || version > VERSION) throw new IOException("Unsupported binary index version %d in %s".formatted(version, path));
+            int count = header.getInt();
+            header.getInt();
+            long metadataOffset = header.getLong();
+            long blobSection = header.getLong();
+
+            ByteBuffer metadata = readFully(channel, metadataOffset, Math.toIntExact(blobSection - metadataOffset));
+            if (metadata.remaining() != blobSection - metadataOffset) throw new IOException("Truncated binary index: %s".formatted(path));
+            return readSnippets(channel, metadata, version, count, blobSection, path);
+        }
+    }
+
+    private static List<SnippetIndex> readSnippets(FileChannel channel, ByteBuffer metadata, int version, int count, long blobSection, Path path) throws IOException {
+        List<SnippetIndex> snippets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SnippetIndex snippet = SnippetIndex.builder()
+                    .id(readString(metadata))
+                    .fileName(readString(metadata))
+                    .description(readString(metadata))
+                    .language(readString(metadata))
+                    .tags(readSet(metadata))
+                    .classNames(readSet(metadata))
+                    .methodNames(readSet(metadata))
+                    .createdAt(readString(metadata))
+                    .updatedAt(readString(metadata))
+                    .contentHash(readString(metadata))
+                    .build();
+            if (version >= 2) {
+                int extractorVersion = metadata.getInt();
+                snippet.setExtractorVersion(extractorVersion == -1 ? null : extractorVersion);
+            }
+            if (version >= 3) {
+                snippet.setEtag(readString(metadata));
+                snippet.setLastModified(readString(metadata));
+            }
+            if (version < 4) readBlob(channel, metadata, blobSection, snippet, path);
+            snippets.add(snippet);
+        }
+        return snippets;
+    }
+
+    //The blob section of files up to version 3, only ones written before the content store hold any content there
+    private static void readBlob(FileChannel channel, ByteBuffer metadata, long blobSection, SnippetIndex snippet, Path path) throws IOException {
+        long offset = blobSection + metadata.getLong();
+        int length = metadata.getInt();
+        if (length > 0) {
+            ByteBuffer blob = readFully(channel, offset, length);
+            if (blob.remaining() != length) throw new IOException("Truncated binary index: %s".formatted(path));
+            snippet.setContentBlob(blob.asReadOnlyBuffer());
+        }
+    }
+
+    //Reads up to length bytes at the position into a heap buffer, fewer only at the end of the file
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) == -1) break;
+        }
+        return buffer.flip();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeSet(DataOutputStream out, Set<String> values) throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(values.size());
+        for (String value : values) writeString(out, value);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == -1) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Set<String> readSet(ByteBuffer in) {
+        int size = in.getInt();
+        if (size == -1) return null;
+        String[] values = new String[size];
+        for (int i = 0; i < size; i++) values[i] = readString(in);
+        return new HashSet<>(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,52 @@
+package io.github.kusoroadeolu.astronaut.services;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Hands a string to the parser a small chunk at a time and fails the read once the deadline passes or the parse's thread is interrupted.
+ * </br>The parser only reads ahead of what it has parsed by a chunk, so a slow parse of a long snippet is stopped within a chunk of the
+ * deadline. Content that fits in one chunk is read whole before parsing starts, so this can't stop its parse, which is why
+ * {@link ParserPool#withParser} also bounds the wait. The parser turns the failed read into a parse problem, check {@link #expired()}
+ * to tell the two apart.
+ */
+final class DeadlineReader extends Reader {
+
+    private static final int CHUNK = 1024;
+
+    private final String content;
+    private final long deadline;
+    private int position;
+    private boolean expired;
+
+    /**
+     * @param content what to read
+     * @param deadline the {@link System#nanoTime()} after which reads fail
+     */
+    DeadlineReader(String content, long deadline) {
+        this.content = content;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        //An abandoned parse is interrupted, so it stops here rather than holding its pool thread
+        if (System.nanoTime() - deadline > 0 || Thread.currentThread().isInterrupted()) {
+            expired = true;
+            throw new IOException("Parse deadline passed");
+        }
+        if (position >= content.length()) return -1;
+
+        int n = Math.min(Math.min(length, CHUNK), content.length() - position);
+        content.getChars(position, position + n, buffer, offset);
+        position += n;
+        return n;
+    }
+
+    boolean expired() {
+        return expired;
+    }
+
+    @Override
+    public void close() {}
+}
@@ -6,18 +6,24 @@ import io.github.kusoroadeolu.astronaut.exceptions.GithubAuthException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jspecify.annotations.NonNull;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.net.URI;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class GistService {
+    private static final int PER_PAGE = 100; //GitHub's max for /gists
+
     private final RestClient client;
 
     public GistCreationResponse createGist(@NonNull GistCreationRequest request){
@@ -48,8 +54,8 @@ public class GistService {
                 .toBodilessEntity();
     }
 
-    public void updateGist(@NonNull String gistId, GistUpdateRequest request) {
-        client.patch()
+    public GistUpdateResponse updateGist(@NonNull String gistId, GistUpdateRequest request) {
+        return client.patch()
                 .uri("/gists/%s".formatted(gistId))
                 .body(request)
                 .retrieve()
@@ -61,12 +67,23 @@ public class GistService {
                     log.error("Failed to update gist due to malformed request body. Please try again. Err: {}", res.getStatusText());
                     throw new GistPersistenceException("Failed to update gist due to malformed request body. Please try again. Err: %s".formatted(res.getStatusText()));
                 })
-                .toBodilessEntity();
+                .body(GistUpdateResponse.class);
     }
 
-    public GistFetchResponse getGist(String gistId) {
-        return client.get()
+    /**
+     * Fetches a gist, unless it hasn't changed since the response the validators came from. GitHub doesn't count a 304 against the rate limit.
+     * @param gistId the gist's ID
+     * @param etag the ETag of the last response for the gist, null to fetch unconditionally
+     * @param lastModified the Last-Modified of the last response for the gist, null to fetch unconditionally
+     * @return the gist with its new validators, or no gist if it wasn't modified
+     */
+    public GistFetch getGist(String gistId, String etag, String lastModified) {
+        ResponseEntity<GistFetchResponse> entity = client.get()
                 .uri("/gists/%s".formatted(gistId))
+                .headers(headers -> {
+                    if (etag != null) headers.setIfNoneMatch(etag);
+                    if (lastModified != null) headers.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+                })
                 .retrieve()
                 .onStatus(status -> status.value() == 404, (_, res)  -> {
                     log.error("Failed to get gist due to the gist being non existent. Err: {}", res.getStatusText());
@@ -76,20 +93,58 @@ public class GistService {
                     logAuthError(res);
                     throw new GithubAuthException("Failed to authorize user. Ensure you're using a valid PAT token. Err: %s".formatted(res.getStatusText()));
                 })
-                .body(GistFetchResponse.class);
+                .toEntity(GistFetchResponse.class);
+
+        HttpHeaders headers = entity.getHeaders();
+        //A 304 may leave out the validators, the ones sent are still current then
+        String newEtag = headers.getETag() == null ? etag : headers.getETag();
+        String newLastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED) == null ? lastModified : headers.getFirst(HttpHeaders.LAST_MODIFIED);
+        if (entity.getStatusCode() == HttpStatus.NOT_MODIFIED) return new GistFetch(null, newEtag, newLastModified);
+        return new GistFetch(entity.getBody(), newEtag, newLastModified);
     }
 
-    public List<GistMultiFetchRequest> getAllGists() {
-        var result = client.get()
-                .uri("/gists")
-                .retrieve()
-                .onStatus(status -> status.value() == 403, (_, res) -> {
-                    logAuthError(res);
-                    throw new GithubAuthException("Failed to authorize user. Ensure you're using a valid PAT token. Err: %s".formatted(res.getStatusText()));
-                })
-                .body(GistMultiFetchRequest[].class);
-        if (result == null || result.length == 0) return List.of();
-        else return Arrays.stream(result).toList();
+    /**
+     * Lists every gist a page at a time, following the {@code Link} header's next page until there's none.
+     * </br>Each page is handed over as soon as it arrives, so the caller can work on one page while the next is listed.
+     * @param pages receives every page, in order, on the calling thread
+     * @return the number of gists listed
+     */
+    public int listGists(Consumer<List<GistMultiFetchRequest>> pages) {
+        URI next = null;
+        int listed = 0;
+        do {
+            //Next page URLs come from GitHub absolute and already encoded, so they're passed as they are
+            var request = next == null ? client.get().uri("/gists?per_page={perPage}", PER_PAGE) : client.get().uri(next);
+            ResponseEntity<GistMultiFetchRequest[]> entity = request
+                    .retrieve()
+                    .onStatus(status -> status.value() == 403, (_, res) -> {
+                        logAuthError(res);
+                        throw new GithubAuthException("Failed to authorize user. Ensure you're using a valid PAT token. Err: %s".formatted(res.getStatusText()));
+                    })
+                    .toEntity(GistMultiFetchRequest[].class);
+
+            GistMultiFetchRequest[] page = entity.getBody();
+            if (page != null && page.length > 0) {
+                listed += page.length;
+                pages.accept(List.of(page));
+            }
+            next = nextPage(entity.getHeaders().getFirst(HttpHeaders.LINK));
+        } while (next != null);
+        return listed;
+    }
+
+    //The rel="next" URL of a Link header like <https://api.github.com/gists?page=2>; rel="next", <...>; rel="last"
+    static URI nextPage(String link) {
+        if (link == null) return null;
+        for (String part : link.split(",")) {
+            String[] segments = part.split(";");
+            String url = segments[0].trim();
+            if (!url.startsWith("<") || !url.endsWith(">")) continue;
+            for (int i = 1; i < segments.length; i++) {
+                if (segments[i].trim().replace(" ", "").equals("rel=\"next\"")) return URI.create(url.substring(1, url.length() - 1));
+            }
+        }
+        return null;
     }
 
     void logAuthError(ClientHttpResponse res) throws IOException {
@@ -1,34 +1,433 @@
 package io.github.kusoroadeolu.astronaut.services;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.kusoroadeolu.astronaut.ContentStore;
 import io.github.kusoroadeolu.astronaut.SnippetCache;
+import io.github.kusoroadeolu.astronaut.entities.SnippetIndex;
 import io.github.kusoroadeolu.astronaut.exceptions.IndexPersistenceException;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+/**
+ * Persists the snippet cache as a snapshot (index.json) plus an append-only log of the changes made since the snapshot.
+ * </br>Every create, update or delete appends one record per changed snippet to the log, so a write costs the size of the change
+ * rather than the size of the corpus. Concurrent commits are grouped by a single writer thread into one append and one fsync.
+ * The log is periodically compacted into a new snapshot in the background, snapshots are written to a temp file, fsynced, then
+ * atomically renamed so a crash never leaves a torn index.json. Startup streams the snapshot, then the segment of a compaction
+ * that didn't finish, then the log.
+ * </br>Snapshots are JSON or, with {@code index.format: binary}, a {@link BinaryIndexFile}. Either format is read,
+ * the configured one is written.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class IndexFileService {
     private final ObjectMapper mapper;
     private final SnippetCache cache;
+    private final ContentStore contentStore;
     @Value("${index.file-path}")
     private String indexPath;
+    @Value("${index.log-path:${index.file-path}.log}")
+    private String logPath;
+    @Value("${index.format:json}")
+    private IndexFormat format;
+    @Value("${index.compaction.min-records:100}")
+    private int compactionMinRecords;
+    @Value("${index.load.chunk-size:1000}")
+    private int loadChunkSize;
 
+    @Value("${index.commit-window-ms:2}")
+    private long commitWindowMs;
 
+    private final Object logLock = new Object();
+    private final Object compactionLock = new Object();
+    private FileChannel logChannel;
+    private int logRecords;
+    private boolean convertSnapshot;
+
+    //Pending commits, the writer thread drains them in batches
+    private final Object pendingLock = new Object();
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("index-writer").daemon().factory());
+    private Set<String> pendingIds = new LinkedHashSet<>();
+    private List<CompletableFuture<Void>> waiters = new ArrayList<>();
+    private boolean flushScheduled;
+
+    /**
+     * Streams the snapshot, then the log over it, to the consumer in chunks of {@code index.load.chunk-size} snippets.
+     * </br>The log is read first so snapshot entries it overrides are skipped, and the JSON snapshot is read token by token so
+     * only one chunk is ever buffered here. A torn record at the end of the log (a crash mid-append) is dropped, a corrupt
+     * record anywhere else is skipped and kept on disk.
+     * @param chunks receives every persisted snippet, one chunk at a time on the calling thread
+     * @return the number of snippets loaded
+     */
+    public int load(Consumer<List<SnippetIndex>> chunks) {
+        //A compaction in flight still owns its segment
+        synchronized (compactionLock) {
+            return loadLocked(chunks);
+        }
+    }
+
+    private int loadLocked(Consumer<List<SnippetIndex>> chunks) {
+        synchronized (logLock) {
+            try {
+                Map<String, LogRecord> logged = new LinkedHashMap<>();
+                logRecords = 0;
+                //A segment left by a compaction that didn't finish holds records older than the log's
+                Path compacting = compactingPath();
+                long compactingLength = Files.exists(compacting) ? replayLog(compacting, logged) : -1;
+                long validLength = replayLog(Path.of(logPath), logged);
+                Chunker chunker = new Chunker(loadChunkSize, chunks);
+                Path snapshot = Path.of(indexPath);
+                boolean binary = Files.exists(snapshot) && BinaryIndexFile.isBinary(snapshot);
+                if (binary) {
+                    for (SnippetIndex s : BinaryIndexFile.read(snapshot)) {
+                        if (!logged.containsKey(s.getId())) chunker.add(s);
+                    }
+                } else if (Files.exists(snapshot)) {
+                    streamJson(snapshot, s -> {
+                        if (!logged.containsKey(s.getId())) chunker.add(s);
+                    });
+                }
+                for (LogRecord logRecord : logged.values()) {
+                    if (logRecord.op() == Op.PUT) chunker.add(logRecord.snippet());
+                }
+                chunker.flush();
+
+                //Converts an existing index.json once the binary format is selected, the JSON is kept next to it.
+                //The binary snapshot is written by the next compaction, once the cache holds every snippet
+                if (format == IndexFormat.BINARY && !binary && Files.exists(snapshot)) {
+                    Files.copy(snapshot, snapshot.resolveSibling(snapshot.getFileName() + ".json.bak"), StandardCopyOption.REPLACE_EXISTING);
+                    convertSnapshot = true;
+                }
+
+                if (compactingLength >= 0) validLength = mergeCompacting(compactingLength, validLength);
+                openLog(validLength);
+                log.info("Loaded {} snippets, replayed {} log records", chunker.count, logRecords);
+                return chunker.count;
+            } catch (IOException e) {
+                log.error("An ex occurred while loading the index", e);
+                throw new IndexPersistenceException("Failed to load the index", e);
+            }
+        }
+    }
+
+    //Reads a JSON array of snippets one object at a time, never the whole tree
+    private void streamJson(Path snapshot, Consumer<SnippetIndex> consumer) throws IOException {
+        try (JsonParser parser = mapper.createParser(Files.newInputStream(snapshot))) {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.VALUE_NULL) return;
+            if (token != JsonToken.START_ARRAY) throw new IOException("Expected an array of snippets in %s".formatted(snapshot));
+            while (parser.nextToken() == JsonToken.START_OBJECT) consumer.accept(mapper.readValue(parser, SnippetIndex.class));
+        }
+    }
+
+    /**
+     * Logs the current state of a snippet and waits until it's durable, see {@link #commit(Collection)}.
+     * @param id the ID of the snippet that changed
+     */
+    public void writeToIndex(String id) {
+        writeToIndex(List.of(id));
+    }
+
+    /**
+     * Logs the current state of every snippet and waits until it's durable, see {@link #commit(Collection)}.
+     * @param ids the IDs of the snippets that changed
+     */
+    public void writeToIndex(Collection<String> ids) {
+        try {
+            commit(ids).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IndexPersistenceException ipe) throw ipe;
+            throw new IndexPersistenceException("Failed to update the index log", e.getCause());
+        }
+    }
+
+    /**
+     * Queues the snippets to be logged, a put for each one that's cached and a delete for each one that isn't.
+     * </br>Commits that arrive within {@code index.commit-window-ms} of each other are written by the writer thread as a single batch
+     * with a single fsync, and a snippet changed several times in a batch is only written once. Each state is read when the batch
+     * is written, so concurrent changes to the same snippet always leave its latest state last in the log.
+     * @param ids the IDs of the snippets that changed
+     * @return completes once the records are fsynced
+     */
+    public CompletableFuture<Void> commit(Collection<String> ids) {
+        if (ids.isEmpty()) return CompletableFuture.completedFuture(null);
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        synchronized (pendingLock) {
+            pendingIds.addAll(ids);
+            waiters.add(durable);
+            if (!flushScheduled) {
+                flushScheduled = true;
+                writer.schedule(this::flush, commitWindowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        return durable;
+    }
+
+    private void flush() {
+        Set<String> ids;
+        List<CompletableFuture<Void>> batch;
+        synchronized (pendingLock) {
+            ids = pendingIds;
+            batch = waiters;
+            pendingIds = new LinkedHashSet<>();
+            waiters = new ArrayList<>();
+            flushScheduled = false;
+        }
 
-    public void writeToIndex(){
         try {
-            var file = Path.of(indexPath).toFile();
-            mapper.writerWithDefaultPrettyPrinter().writeValue(file, cache.values());
-        }catch (IOException e) {
-            log.error("An ex occurred while writing to index.json", e);
-            throw new IndexPersistenceException("Failed to update index.json file", e);
+            append(ids);
+            batch.forEach(f -> f.complete(null));
+        } catch (RuntimeException e) {
+            batch.forEach(f -> f.completeExceptionally(e));
+        }
+    }
+
+    private void append(Collection<String> ids) {
+        synchronized (logLock) {
+            try {
+                ByteArrayOutputStream records = new ByteArrayOutputStream();
+                for (String id : ids) {
+                    SnippetIndex snippet = cache.get(id);
+                    LogRecord logRecord = snippet == null ? new LogRecord(Op.DELETE, id, null) : new LogRecord(Op.PUT, id, snippet);
+                    mapper.writeValue(records, logRecord);
+                    records.write('\n');
+                }
+
+                ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+                while (buffer.hasRemaining()) logChannel.write(buffer);
+                logChannel.force(false);
+                logRecords += ids.size();
+            } catch (IOException e) {
+                log.error("An ex occurred while appending to the index log", e);
+                throw new IndexPersistenceException("Failed to update the index log", e);
+            }
+        }
+    }
+
+    /**
+     * Writes the cache to a new snapshot and drops the log records it covers, once enough records have piled up or the snapshot
+     * needs converting. Skipped while the cache is still loading, a snapshot of a partial cache would lose every snippet not loaded yet.
+     * </br>The log is first rotated into a compacting segment, so commits keep appending to a fresh log while the snapshot is written
+     * and only wait for the rotation. The segment is deleted once the snapshot is durable, until then startup replays it before the log.
+     * </br>Every record is logged after its change reached the cache, so the snapshot already holds every change in the segment it replaces.
+     * Blobs that lost their last reference before the snapshot are deleted from the content store once it's durable.
+     */
+    @Scheduled(fixedDelayString = "${index.compaction.interval-ms:300000}", initialDelayString = "${index.compaction.interval-ms:300000}")
+    public void compact() {
+        synchronized (compactionLock) {
+            int compacted;
+            synchronized (logLock) {
+                if (logChannel == null || cache.readiness() == SnippetCache.Readiness.LOADING) return;
+                if (logRecords < compactionMinRecords && !convertSnapshot && !Files.exists(compactingPath())) return;
+                compacted = logRecords;
+                try {
+                    rotateLog();
+                } catch (IOException e) {
+                    log.error("An ex occurred while rotating the index log", e);
+                    return;
+                }
+            }
+
+            try {
+                Map<String, Long> orphans = contentStore.orphans();
+                writeSnapshot(List.copyOf(cache.values()));
+                Files.delete(compactingPath());
+                synchronized (logLock) {
+                    convertSnapshot = false;
+                }
+                log.info("Compacted {} log records into {}", compacted, indexPath);
+                contentStore.sweep(orphans);
+            } catch (IOException e) {
+                //The segment is still intact, the next run folds it into its own
+                log.error("An ex occurred while compacting the index log", e);
+            }
+        }
+    }
+
+    //Moves the log's records into the compacting segment and starts an empty log, callers hold the log lock
+    private void rotateLog() throws IOException {
+        Path path = Path.of(logPath);
+        Path compacting = compactingPath();
+        if (Files.exists(compacting)) {
+            //A failed compaction left its segment behind, its records are older so this log's go after them
+            try (FileChannel segment = FileChannel.open(compacting, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                long size = logChannel.size();
+                for (long copied = 0; copied < size; ) copied += logChannel.transferTo(copied, size - copied, segment);
+                segment.force(true);
+            }
+            logChannel.truncate(0);
+            logChannel.force(true);
+            logChannel.position(0);
+        } else {
+            //Closed first, an open file can't be renamed on Windows
+            logChannel.close();
+            try {
+                Files.move(path, compacting, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                logChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                logChannel.position(logChannel.size());
+            }
+        }
+        logRecords = 0;
+    }
+
+    //Folds a leftover compacting segment and the log back into one log at startup, returns the merged log's valid length
+    private long mergeCompacting(long compactingLength, long logLength) throws IOException {
+        Path path = Path.of(logPath);
+        Path compacting = compactingPath();
+        try (FileChannel segment = FileChannel.open(compacting, StandardOpenOption.WRITE)) {
+            //Drops the segment's torn tail, if any, before the log's records go after it
+            segment.truncate(compactingLength);
+            segment.position(compactingLength);
+            if (Files.exists(path)) {
+                try (FileChannel logFile = FileChannel.open(path, StandardOpenOption.READ)) {
+                    for (long copied = 0; copied < logLength; ) copied += logFile.transferTo(copied, logLength - copied, segment);
+                }
+            }
+            segment.force(true);
+        }
+        Files.move(compacting, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return compactingLength + logLength;
+    }
+
+    private Path compactingPath() {
+        return Path.of(logPath + ".compacting");
+    }
+
+    //Writes the snapshot in the configured format to a temp file, fsyncs it, then renames it over the old one
+    private void writeSnapshot(Collection<SnippetIndex> snippets) throws IOException {
+        Path snapshot = Path.of(indexPath);
+        Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel))) {
+            switch (format) {
+                case JSON -> mapper.writerWithDefaultPrettyPrinter().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValue(out, snippets); //The channel is still needed for the fsync
+                case BINARY -> BinaryIndexFile.write(out, snippets);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        //Already scheduled flushes still run after shutdown
+        writer.shutdown();
+        if (!writer.awaitTermination(10, TimeUnit.SECONDS)) log.warn("Timed out waiting for pending index commits");
+        synchronized (logLock) {
+            if (logChannel != null) logChannel.close();
+        }
+    }
+
+    //Collects the last complete record of every snippet, returns the length of the log up to the end of the last terminated line
+    private long replayLog(Path path, Map<String, LogRecord> logged) throws IOException {
+        if (!Files.exists(path)) return 0;
+
+        long validLength = 0;
+        int corrupt = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+
+                //A terminated line was fully written and fsynced, so a bad one is corruption rather than a torn append. Only that
+                //record is skipped, the ones after it are still the latest state of their snippets
+                validLength += line.size() + 1;
+                try {
+                    LogRecord logRecord = mapper.readValue(line.toByteArray(), LogRecord.class);
+                    logged.put(logRecord.id(), logRecord);
+                    logRecords++;
+                } catch (IOException e) {
+                    corrupt++;
+                    log.error("Skipping a corrupt record ending at byte {} of {}", validLength, path, e);
+                }
+                line.reset();
+            }
+
+            //Every record ends with a newline, anything after the last one was cut off mid-append
+            if (line.size() > 0) log.warn("Dropping a torn record at the end of {}", path);
+        }
+        if (corrupt > 0) log.error("Skipped {} corrupt records in {}, the snippets they logged keep their earlier state", corrupt, path);
+        return validLength;
+    }
+
+    private void openLog(long validLength) throws IOException {
+        if (logChannel != null) logChannel.close();
+        logChannel = FileChannel.open(Path.of(logPath), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        //Only drops an unterminated tail, so the next record doesn't get appended onto it
+        logChannel.truncate(validLength);
+        logChannel.position(validLength);
+    }
+
+    public enum IndexFormat { JSON, BINARY }
+
+    enum Op { PUT, DELETE }
+
+    //Groups snippets into chunks for the load consumer
+    private static final class Chunker {
+        private final int size;
+        private final Consumer<List<SnippetIndex>> consumer;
+        private List<SnippetIndex> chunk;
+        private int count;
+
+        Chunker(int size, Consumer<List<SnippetIndex>> consumer) {
+            this.size = Math.max(1, size);
+            this.consumer = consumer;
+            this.chunk = new ArrayList<>(this.size);
+        }
+
+        void add(SnippetIndex snippet) {
+            chunk.add(snippet);
+            count++;
+            if (chunk.size() == size) flush();
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) return;
+            consumer.accept(chunk);
+            chunk = new ArrayList<>(size);
         }
     }
+
+    record LogRecord(Op op, String id, SnippetIndex snippet) {}
 }
@@ -0,0 +1,71 @@
+package io.github.kusoroadeolu.astronaut.services;
+
+import com.github.javaparser.JavaParser;
+import io.github.kusoroadeolu.astronaut.exceptions.SnippetParseException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs parsing on a fixed set of platform threads, each with its own {@link JavaParser} since a parser isn't safe to share.
+ * </br>Callers, usually virtual threads fetching gists, block until their parse is done, so however many of them parse at once
+ * there are never more parses running than pool threads. Size the pool to the cores to parse on all of them without oversubscribing.
+ */
+@Slf4j
+public class ParserPool implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final ThreadLocal<JavaParser> parsers;
+
+    public ParserPool(int threads, Supplier<JavaParser> parserFactory) {
+        this.executor = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("parser-", 0).daemon().factory());
+        this.parsers = ThreadLocal.withInitial(parserFactory);
+        log.info("Parsing on {} threads", threads);
+    }
+
+    /**
+     * Runs the work on a pool thread with the thread's own parser, so parsing and any CPU-bound work on the AST stays within the pool.
+     * </br>The timeout starts once a pool thread picks the work up, time spent queued behind other parses doesn't count. On timeout the
+     * work is interrupted and abandoned, a parse can't be stopped from outside so its thread is only freed once the parse notices.
+     * @param work what to parse and do with the result, must not keep the parser or the AST for other threads to use after returning
+     * @param timeoutMs how long the work may run
+     * @return what the work returned
+     * @throws TimeoutException if the work didn't finish in time
+     * @throws SnippetParseException if the work failed unexpectedly or the caller was interrupted while waiting
+     */
+    public <T> T withParser(Function<JavaParser, T> work, long timeoutMs) throws TimeoutException {
+        CountDownLatch started = new CountDownLatch(1);
+        Future<T> future = executor.submit(() -> {
+            started.countDown();
+            return work.apply(parsers.get());
+        });
+        try {
+            started.await();
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw e;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new SnippetParseException("Interrupted while waiting for a parse", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException r) throw r;
+            throw new SnippetParseException("Failed to parse snippet", e.getCause());
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) log.warn("Timed out waiting for pending parses");
+    }
+}
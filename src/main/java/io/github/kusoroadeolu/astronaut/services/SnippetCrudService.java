@@ -1,23 +1,32 @@
 package io.github.kusoroadeolu.astronaut.services;
 
-import io.github.kusoroadeolu.astronaut.CompressionUtils;
+import io.github.kusoroadeolu.astronaut.ContentCache;
 import io.github.kusoroadeolu.astronaut.SnippetCache;
 import io.github.kusoroadeolu.astronaut.dtos.*;
 import io.github.kusoroadeolu.astronaut.entities.SnippetIndex;
 import io.github.kusoroadeolu.astronaut.exceptions.IndexPersistenceException;
 import io.github.kusoroadeolu.astronaut.exceptions.NoSuchSnippetException;
+import io.github.kusoroadeolu.astronaut.exceptions.SnippetContentMissingException;
+import io.github.kusoroadeolu.astronaut.services.SnippetParsingService.ParseOutcome;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jspecify.annotations.NonNull;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.atomic.LongAdder;
 
-import static io.github.kusoroadeolu.astronaut.CompressionUtils.compressToBase64;
+import static io.github.kusoroadeolu.astronaut.CompressionUtils.compress;
 import static io.github.kusoroadeolu.astronaut.CompressionUtils.hash;
 
 /**
@@ -37,74 +46,85 @@ public class SnippetCrudService {
     private final SnippetParsingService snippetParsingService;
 
     public SnippetResponse createSnippet(@NonNull SnippetCreationRequest request) {
+        cache.requireReadiness(SnippetCache.Readiness.INDEXING);
         GistCreationRequest gistCreationRequest = gistMapper.fromSnippetCreationRequest(request);
         GistCreationResponse response = gistService.createGist(gistCreationRequest);
         SnippetIndex snippetIndex = snippetMapper.toSnippetIndex(request, response);
 
-        if (snippetIndex.isJavaSnippet())
-            snippetParsingService.parseSnippetContent(snippetIndex, request.content());
+        snippetParsingService.parseSnippetContent(snippetIndex, request.content(), snippetIndex.getContentHash());
 
         cache.add(snippetIndex);
-        indexFileService.writeToIndex();
+        indexFileService.writeToIndex(snippetIndex.getId());
         return snippetMapper.toSnippetResponse(snippetIndex);
     }
 
     public void deleteSnippet(String gistId) {
+        cache.requireReadiness(SnippetCache.Readiness.INDEXING);
         boolean removed = cache.remove(gistId);
         if (removed) {
             gistService.deleteGist(gistId);
-            indexFileService.writeToIndex();
+            indexFileService.writeToIndex(gistId);
         } else throw new NoSuchSnippetException("Failed to find snippet with ID: %s".formatted(gistId));
     }
 
     public SnippetResponse updateSnippet(String gistId, SnippetUpdateRequest updateRequest) {
+        cache.requireReadiness(SnippetCache.Readiness.INDEXING);
         SnippetIndex snippetIndex = cache.get(gistId);
         if (snippetIndex == null) throw new NoSuchSnippetException("Failed to find a snippet with id: %s".formatted(gistId));
         log.info("Found snippet index: {}", snippetIndex);
         String hash = hash(updateRequest.content());
-        boolean updated = updateGist(gistId, hash ,snippetIndex, updateRequest);
+        GistUpdateResponse updated = updateGist(gistId, hash ,snippetIndex, updateRequest);
 
 
         if (!snippetIndex.getTags().equals(updateRequest.tags()))
             snippetIndex.setTags(updateRequest.tags());
 
-        if (updated) {
-            snippetIndex.setContent(compressToBase64(updateRequest.content()));
-            snippetIndex.setContentHash(hash);
+        if (updated != null) {
+            //Parsed against the old hash, a description-only update leaves the content and its metadata alone
+            snippetParsingService.parseSnippetContent(snippetIndex, updateRequest.content(), hash);
+
+            if (!hash.equals(snippetIndex.getContentHash())) {
+                snippetIndex.setContentBlob(ByteBuffer.wrap(compress(updateRequest.content())));
+                snippetIndex.setContentHash(hash);
+            }
             if (!updateRequest.description().isBlank())
                 snippetIndex.setDescription(updateRequest.description());
 
-            if (snippetIndex.isJavaSnippet())
-                snippetParsingService.parseSnippetContent(snippetIndex, updateRequest.content());
+            //What the next listing reports, so refresh doesn't fetch the edit back. The validators were for the gist before the edit
+            snippetIndex.setUpdatedAt(updated.updatedAt() != null ? updated.updatedAt() : Instant.now().truncatedTo(ChronoUnit.SECONDS).toString());
+            snippetIndex.setEtag(null);
+            snippetIndex.setLastModified(null);
         }
 
-
-
-        indexFileService.writeToIndex();
+        cache.add(snippetIndex);
+        indexFileService.writeToIndex(gistId);
         log.info("Updated snippet index: {}", snippetIndex);
         return snippetMapper.toSnippetResponse(snippetIndex);
     }
 
-    boolean updateGist(String gistId, String newHash ,SnippetIndex snippetIndex, SnippetUpdateRequest updateRequest) {
+    //Null if neither the content nor the description changed, nothing is sent to GitHub then
+    GistUpdateResponse updateGist(String gistId, String newHash ,SnippetIndex snippetIndex, SnippetUpdateRequest updateRequest) {
         boolean shouldUpdateDescription = !updateRequest.description().equals(snippetIndex.getDescription()) && !updateRequest.description().isBlank();
         if (!newHash.equals(snippetIndex.getContentHash()) || shouldUpdateDescription){
             GistUpdateRequest gistUpdateRequest = gistMapper.fromSnippetUpdateRequest(snippetIndex.getFileName(), updateRequest);
-            gistService.updateGist(gistId, gistUpdateRequest);
-            return true;
+            GistUpdateResponse response = gistService.updateGist(gistId, gistUpdateRequest);
+            return response != null ? response : new GistUpdateResponse(null);
         }
 
-        return false;
+        return null;
     }
 
 
     public SnippetContentResponse findById(String gistId) {
+        cache.requireReadiness(SnippetCache.Readiness.INDEXING);
         SnippetIndex snippetIndex = cache.get(gistId);
         if (snippetIndex == null) throw new NoSuchSnippetException("Failed to find a snippet with id: %s".formatted(gistId));
         SnippetResponse snippetResponse = snippetMapper.toSnippetResponse(snippetIndex);
-        return new SnippetContentResponse(snippetResponse, CompressionUtils.decompressFromBase64(snippetIndex.getContent()));
+        return new SnippetContentResponse(snippetResponse, cache.contentOf(snippetIndex));
     }
 
     public List<SnippetResponse> getSnippets(String order) {
+        cache.requireReadiness(SnippetCache.Readiness.INDEXING);
         var stream = cache.values().stream().map(snippetMapper::toSnippetResponse);
         return switch (order) {
             case "created_at" -> stream.sorted(Comparator.comparing(SnippetResponse::createdAt).reversed()).toList();
@@ -114,37 +134,116 @@ public class SnippetCrudService {
         };
     }
 
+    /**
+     * Re-lists every gist, page by page, fetching only the ones updated since the last refresh and re-parsing only the ones whose content changed
+     * since it was last parsed (or that are new).
+     * </br>A gist whose listed {@code updated_at} matches the snippet's isn't fetched at all, the others are fetched with the ETag and
+     * Last-Modified of their last fetch, so a gist that comes back 304 isn't downloaded, parsed or compressed again either.
+     * Unchanged snippets aren't re-indexed or re-logged, the number of fetches and parses skipped is logged.
+     */
     public List<SnippetResponse> refreshGists() {
-        var results = gistService.getAllGists();
+        cache.requireReadiness(SnippetCache.Readiness.INDEXING);
         Set<SnippetIndex> set = ConcurrentHashMap.newKeySet();
+        Map<ParseOutcome, LongAdder> outcomes = new EnumMap<>(ParseOutcome.class);
+        for (ParseOutcome outcome : ParseOutcome.values()) outcomes.put(outcome, new LongAdder());
+        Map<FetchOutcome, LongAdder> fetches = new EnumMap<>(FetchOutcome.class);
+        for (FetchOutcome outcome : FetchOutcome.values()) fetches.put(outcome, new LongAdder());
+        int listed;
         try (var taskScope = StructuredTaskScope.open()) {
-            for (int i = 0; i < results.size(); i++) {
-                int j = i;
-                taskScope.fork(() -> {
-                   boolean isNew = false;
-                   GistMultiFetchRequest request = results.get(j);
-                   GistFetchResponse response = gistService.getGist(request.id());
-                   SnippetIndex index = cache.get(request.id());
-                   if (index == null) {
-                       index = snippetMapper.fromMultiFetchRequest(request, response.content());
-                       isNew = true;
-                   }
-
-                   snippetParsingService.parseSnippetContent(index, response.content());
-
-                   if (isNew) set.add(index);
-                });
-            }
+            //Every page's gists are forked as soon as it's listed, so they're fetched and parsed while the next page is listed
+            listed = gistService.listGists(page -> {
+                for (GistMultiFetchRequest request : page) {
+                    taskScope.fork(() -> {
+                        refreshGist(request, set, outcomes, fetches);
+                    });
+                }
+            });
 
             taskScope.join();
         } catch (InterruptedException e) {
             throw new IndexPersistenceException("Failed to save some gists to index. Please try again", e);
         }
 
+        log.info("Refreshed {} gists, parsed {} ({} lexed over budget), lexed {} ({} unsupported languages), reused {} memoized parses, skipped {} unchanged",
+                listed, outcomes.get(ParseOutcome.PARSED).sum() + outcomes.get(ParseOutcome.FALLBACK).sum(), outcomes.get(ParseOutcome.FALLBACK).sum(),
+                outcomes.get(ParseOutcome.LEXED).sum() + outcomes.get(ParseOutcome.UNSUPPORTED).sum(), outcomes.get(ParseOutcome.UNSUPPORTED).sum(),
+                outcomes.get(ParseOutcome.MEMOIZED).sum(), outcomes.get(ParseOutcome.UNCHANGED).sum());
+        log.info("Fetched {} gists, {} came back not modified, {} weren't fetched", fetches.get(FetchOutcome.FETCHED).sum(),
+                fetches.get(FetchOutcome.NOT_MODIFIED).sum(), fetches.get(FetchOutcome.NOT_FETCHED).sum());
+        snippetParsingService.extractorTimings().forEach(t ->
+                log.info("Extractor {} handled {} nodes in {} ms since startup", t.extractor(), t.calls(), t.nanos() / 1_000_000));
+        ContentCache.Stats contentStats = cache.contentCacheStats();
+        log.info("Content cache served {} hits and {} misses and evicted {} since startup, it holds {} snippets in {} KB",
+                contentStats.hits(), contentStats.misses(), contentStats.evictions(), contentStats.entries(), contentStats.bytes() / 1024);
         cache.addAll(set);
-        indexFileService.writeToIndex();
+        indexFileService.writeToIndex(set.stream().map(SnippetIndex::getId).toList());
         return cache.values().stream()
                 .map(snippetMapper::toSnippetResponse)
                 .toList();
     }
-}
\ No newline at end of file
+
+    /**
+     * Brings one snippet up to date with its gist.
+     * @param request the gist as listed
+     * @param changed collects the snippets to re-index and re-log
+     */
+    private void refreshGist(GistMultiFetchRequest request, Set<SnippetIndex> changed, Map<ParseOutcome, LongAdder> outcomes,
+                             Map<FetchOutcome, LongAdder> fetches) {
+        SnippetIndex index = cache.get(request.id());
+        boolean listedUnchanged = index != null && Objects.equals(request.updatedAt(), index.getUpdatedAt());
+        if (listedUnchanged && Objects.equals(index.getExtractorVersion(), SnippetParsingService.EXTRACTOR_VERSION)) {
+            fetches.get(FetchOutcome.NOT_FETCHED).increment();
+            outcomes.get(ParseOutcome.UNCHANGED).increment();
+            return;
+        }
+
+        //Only the extractors changed if the gist wasn't updated, the stored content is current then
+        String content = listedUnchanged ? storedContent(index) : null;
+        boolean metadataChanged = false;
+        boolean fetched = false;
+        if (content != null) {
+            fetches.get(FetchOutcome.NOT_FETCHED).increment();
+        } else {
+            GistFetch fetch = index == null ? gistService.getGist(request.id(), null, null) : gistService.getGist(request.id(), index.getEtag(), index.getLastModified());
+            if (fetch.notModified()) content = storedContent(index);
+            if (content == null && fetch.notModified()) fetch = gistService.getGist(request.id(), null, null); //Nothing stored to fall back on
+            fetches.get(fetch.notModified() ? FetchOutcome.NOT_MODIFIED : FetchOutcome.FETCHED).increment();
+            if (!fetch.notModified()) {
+                content = fetch.response().content();
+                fetched = true;
+            }
+
+            if (index == null) {
+                index = snippetMapper.fromMultiFetchRequest(request, content);
+            } else {
+                if (request.description() != null) index.setDescription(request.description());
+                index.setUpdatedAt(request.updatedAt());
+            }
+            index.setEtag(fetch.etag());
+            index.setLastModified(fetch.lastModified());
+            metadataChanged = true;
+        }
+
+        String hash = hash(content);
+        ParseOutcome outcome = snippetParsingService.parseSnippetContent(index, content, hash);
+        outcomes.get(outcome).increment();
+        //Fetched content is stored again even if it didn't change, so a blob that went missing is written back, the store skips one it has
+        if (fetched && !index.hasContent()) {
+            index.setContentBlob(ByteBuffer.wrap(compress(content)));
+            index.setContentHash(hash);
+        }
+        if (outcome != ParseOutcome.UNCHANGED || metadataChanged) changed.add(index); //Re-added so the new content and names get re-indexed
+    }
+
+    //Null if the snippet's blob is missing, the gist is fetched in full instead
+    private String storedContent(SnippetIndex index) {
+        try {
+            return cache.contentOf(index);
+        } catch (SnippetContentMissingException e) {
+            log.warn("The content of snippet {} is missing, fetching its gist in full", index.getId());
+            return null;
+        }
+    }
+
+    private enum FetchOutcome { FETCHED, NOT_MODIFIED, NOT_FETCHED }
+}
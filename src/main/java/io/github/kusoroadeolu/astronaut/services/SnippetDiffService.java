@@ -46,6 +46,10 @@ public class SnippetDiffService {
             comparingTo = var2.get();
         } catch (InterruptedException e) {
             throw new SnippetComparisonException("Failed to compare snippets with ID: %s and %s".formatted(comparingId, comparingToId), e);
+        } catch (StructuredTaskScope.FailedException e) {
+            //Rethrows what findById threw, so a missing snippet or missing content keeps its own status
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new SnippetComparisonException("Failed to compare snippets with ID: %s and %s".formatted(comparingId, comparingToId), e.getCause());
         }
 
         final List<String> comparingContentAsList = List.of(comparing.content().split("\n"));
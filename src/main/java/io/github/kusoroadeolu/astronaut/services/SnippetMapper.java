@@ -9,12 +9,13 @@ import io.github.kusoroadeolu.astronaut.entities.SnippetIndex;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashSet;
 
-import static io.github.kusoroadeolu.astronaut.CompressionUtils.compressToBase64;
+import static io.github.kusoroadeolu.astronaut.CompressionUtils.compress;
 import static io.github.kusoroadeolu.astronaut.CompressionUtils.hash;
 
 @Slf4j
@@ -30,7 +31,7 @@ public class SnippetMapper {
                 .description(request.description())
                 .tags(request.tags())
                 .language(val.getFirst().language())
-                .content(compressToBase64(request.content()))
+                .contentBlob(ByteBuffer.wrap(compress(request.content())))
                 .contentHash(hash(request.content()))
                 .createdAt(response.createdAt())
                 .updatedAt(response.createdAt())
@@ -49,7 +50,7 @@ public class SnippetMapper {
                 .classNames(new HashSet<>())
                 .methodNames(new HashSet<>())
                 .language(val.getFirst().language())
-                .content(compressToBase64(content))
+                .contentBlob(ByteBuffer.wrap(compress(content)))
                 .contentHash(hash(content))
                 .createdAt(request.createdAt())
                 .updatedAt(request.updatedAt())
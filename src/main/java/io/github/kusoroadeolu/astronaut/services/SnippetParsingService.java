@@ -4,61 +4,204 @@ import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParseResult;
 import com.github.javaparser.ast.CompilationUnit;
 import io.github.kusoroadeolu.astronaut.entities.SnippetIndex;
+import io.github.kusoroadeolu.astronaut.visitors.LanguageGrammar;
+import io.github.kusoroadeolu.astronaut.visitors.SymbolLexer;
 import io.github.kusoroadeolu.astronaut.visitors.VisitorOrchestrator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
  * Parses Java code snippets and extracts structural metadata using JavaParser.
+ * </br>Snippets in other languages with a {@link LanguageGrammar} get their type and function names from the {@link SymbolLexer}
+ * instead, into the same class and method names, so structural search covers them too.
  * </br>Attempts to parse the snippet content directly. If parsing fails, wraps the content
- * in a class to handle code fragments. Extracted metadata (annotations, methods, fields, etc.)
+ * in a class, then in a method, to handle code fragments. Extracted metadata (annotations, methods, fields, etc.)
  * is stored with the snippet for structural searching.
+ * </br>Every snippet gets a budget of {@code parse.max-chars} characters and {@code parse.timeout-ms} for all its attempts. Snippets
+ * over budget, or that don't parse at all, are lexed instead, so every snippet is indexed and none can stall a refresh.
+ * </br>Parsing runs on the {@link ParserPool}, so concurrent callers never share a parser or parse on more threads than there are cores.
+ * </br>Extracted metadata is memoized by content hash and {@link #EXTRACTOR_VERSION}, so unchanged or duplicate content is never
+ * parsed twice. Bump the version whenever the extractors change what they extract, every snippet is then re-parsed once.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class SnippetParsingService {
 
+    public static final int EXTRACTOR_VERSION = 4;
+    private static final String FRAGMENT_CLASS = "AstronautFragment$";
+    private static final String FRAGMENT_METHOD = "astronautFragment$";
+    private static final Set<String> WRAPPER_NAMES = Set.of(FRAGMENT_CLASS, FRAGMENT_METHOD);
 
     private final VisitorOrchestrator visitorOrchestrator;
-    private final JavaParser parser;
+    private final ParserPool parserPool;
+
+    @Value("${parse.memo-size:1024}")
+    private int memoSize;
+
+    @Value("${parse.max-chars:262144}")
+    private int maxChars;
+
+    @Value("${parse.timeout-ms:2000}")
+    private long timeoutMs;
+
+    //Content hash -> what the current extractors found in it. Snippets record the version they were parsed with, so this only
+    //ever holds results of the running version
+    private final Map<String, Extracted> memo = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Extracted> eldest) {
+            return size() > memoSize;
+        }
+    };
 
     /**
-     * Parses the snippet content and extracts available metadata, then saves the snippet.
+     * Extracts the content's metadata into the snippet, unless it already holds what the current extractors found in the same content.
+     * Call before the snippet's content hash is updated.
      * @param snippet the snippet to parse and process
+     * @param content the snippet's content
+     * @param hash the content's hash
+     * @return whether the content was parsed, or how parsing was avoided
      */
-    public void parseSnippetContent(SnippetIndex snippet, String content){
-        ParseResult<CompilationUnit> result = this.parseContent(content);
+    public ParseOutcome parseSnippetContent(SnippetIndex snippet, String content, String hash){
+        if (hash.equals(snippet.getContentHash()) && Objects.equals(snippet.getExtractorVersion(), EXTRACTOR_VERSION)) return ParseOutcome.UNCHANGED;
+        if (!snippet.isJavaSnippet()) return lexSnippetContent(snippet, content);
 
-        if(result.getResult().isEmpty()){
-            log.info("Parse failed for snippet: {}", snippet.getFileName());
-            return;
+        Extracted extracted;
+        synchronized (memo) {
+            extracted = memo.get(hash);
+        }
+        if (extracted != null) {
+            extracted.applyTo(snippet, visitorOrchestrator);
+            return ParseOutcome.MEMOIZED;
         }
 
-        CompilationUnit unit = result.getResult().get();
         log.info("Attempting to parse snippet: {}", snippet.getFileName());
-        extractMetaData(snippet, unit);
+        //Extraction walks the AST, so it runs on the parser thread along with the parse
+        extracted = content.length() > maxChars ? null : parseWithinBudget(content);
+        if (extracted == null) {
+            log.info("Failed to parse snippet: {} within budget, falling back to lexing", snippet.getFileName());
+            lex(snippet, content, LanguageGrammar.forLanguage("java"));
+            return ParseOutcome.FALLBACK;
+        }
+
+        extracted.applyTo(snippet, visitorOrchestrator);
+        remember(hash, extracted);
         log.info("Successfully parsed snippet: {}", snippet.getFileName());
+        return ParseOutcome.PARSED;
+    }
+
+    //Bounds the wait too, the reader's deadline can't stop a parse once it has read everything
+    private Extracted parseWithinBudget(String content) {
+        try {
+            return parserPool.withParser(parser -> parseWithinBudget(parser, content), timeoutMs);
+        } catch (TimeoutException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses the content as a whole file, then wrapped in a class body, then wrapped in a method body, all within one deadline.
+     * @param parser the pool thread's parser
+     * @param content the code to parse
+     * @return what the extractors found in the first clean parse, or else in the first partial one, null if nothing parsed in time
+     */
+    private Extracted parseWithinBudget(JavaParser parser, String content) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        ParseResult<CompilationUnit> partial = null;
+        Fragment partialFragment = null;
+        for (Fragment fragment : Fragment.values()) {
+            DeadlineReader reader = new DeadlineReader(fragment.wrap(content), deadline);
+            ParseResult<CompilationUnit> result = parser.parse(reader);
+            if (reader.expired() || Thread.currentThread().isInterrupted()) return null;
+            if (result.isSuccessful()) return extractMetaData(result.getResult().orElseThrow(), fragment);
+            if (partial == null && result.getResult().isPresent()) {
+                partial = result;
+                partialFragment = fragment;
+            }
+        }
+        return partial == null ? null : extractMetaData(partial.getResult().get(), partialFragment);
+    }
+
+    //Lexing is a single pass over the content, cheap enough that it isn't memoized
+    private ParseOutcome lexSnippetContent(SnippetIndex snippet, String content) {
+        LanguageGrammar grammar = LanguageGrammar.forLanguage(snippet.getLanguage());
+        snippet.setExtractorVersion(EXTRACTOR_VERSION);
+        if (grammar == null) return ParseOutcome.UNSUPPORTED;
+        lex(snippet, content, grammar);
+        return ParseOutcome.LEXED;
+    }
+
+    private static void lex(SnippetIndex snippet, String content, LanguageGrammar grammar) {
+        SymbolLexer.Symbols symbols = SymbolLexer.extract(content, grammar);
+        snippet.setExtractorVersion(EXTRACTOR_VERSION);
+        snippet.setClassNames(symbols.typeNames());
+        snippet.setMethodNames(symbols.functionNames());
     }
 
-    //A helper method to build the AST of a content
-    private ParseResult<CompilationUnit> parseContent(String content){
-        return parser.parse(content);
+    private void remember(String hash, Extracted extracted) {
+        synchronized (memo) {
+            memo.put(hash, extracted);
+        }
     }
 
     /**
-     * Extracts metadata from the compilation unit and stores it in the snippet.
-     * </br>Runs all visitors to gather structural information (annotations, methods, fields, etc.)
-     * and marks the snippet as having available metadata.
+     * Extracts metadata from the compilation unit.
+     * </br>Runs all extractors in one traversal to gather structural information (class names, method names, etc.)
      *
-     * @param snippet the snippet to populate with metadata
      * @param unit the parsed compilation unit to analyze
+     * @param fragment how the content was wrapped, the wrapper's own names aren't kept
+     * @return what the extractors found, by extractor name
      */
-    private void extractMetaData(SnippetIndex snippet, CompilationUnit unit){
-        visitorOrchestrator.visitAllVisitors(unit, snippet);
+    private Extracted extractMetaData(CompilationUnit unit, Fragment fragment){
+        Map<String, Set<String>> found = new HashMap<>();
+        visitorOrchestrator.extract(unit).forEach((extractor, values) -> {
+            if (fragment != Fragment.COMPILATION_UNIT) values.removeAll(WRAPPER_NAMES);
+            found.put(extractor, Set.copyOf(values));
+        });
+        return new Extracted(Map.copyOf(found));
+    }
+
+    //Time every extractor spent on its nodes since startup
+    public List<VisitorOrchestrator.ExtractorTiming> extractorTimings() {
+        return visitorOrchestrator.timings();
     }
 
+    public enum ParseOutcome { PARSED, LEXED, FALLBACK, UNSUPPORTED, MEMOIZED, UNCHANGED }
 
+    //How the content is wrapped for each parse attempt, code that isn't a whole file may still be a class body or a method body
+    private enum Fragment {
+        COMPILATION_UNIT("", ""),
+        CLASS_BODY("class %s {\n".formatted(FRAGMENT_CLASS), "\n}"),
+        METHOD_BODY("class %s { void %s() {\n".formatted(FRAGMENT_CLASS, FRAGMENT_METHOD), "\n}}");
 
-}
\ No newline at end of file
+        private final String prefix;
+        private final String suffix;
+
+        Fragment(String prefix, String suffix) {
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+
+        String wrap(String content) {
+            return prefix.isEmpty() ? content : prefix + content + suffix;
+        }
+    }
+
+    private record Extracted(Map<String, Set<String>> byExtractor) {
+        void applyTo(SnippetIndex snippet, VisitorOrchestrator orchestrator) {
+            snippet.setExtractorVersion(EXTRACTOR_VERSION);
+            orchestrator.store(byExtractor, snippet);
+        }
+    }
+}
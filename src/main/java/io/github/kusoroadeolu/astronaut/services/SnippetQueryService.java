@@ -1,19 +1,33 @@
 package io.github.kusoroadeolu.astronaut.services;
 
 import io.github.kusoroadeolu.astronaut.SnippetCache;
-import io.github.kusoroadeolu.astronaut.dtos.SearchCriteria;
+import io.github.kusoroadeolu.astronaut.dtos.FacetsResponse;
+import io.github.kusoroadeolu.astronaut.dtos.SearchPage;
+import io.github.kusoroadeolu.astronaut.dtos.SimilarSnippetResponse;
 import io.github.kusoroadeolu.astronaut.dtos.SnippetResponse;
+import io.github.kusoroadeolu.astronaut.dtos.SuggestionResponse;
 import io.github.kusoroadeolu.astronaut.entities.SnippetIndex;
+import io.github.kusoroadeolu.astronaut.exceptions.NoSuchSnippetException;
+import io.github.kusoroadeolu.astronaut.exceptions.SnippetContentMissingException;
+import io.github.kusoroadeolu.astronaut.search.QueryCache;
+import io.github.kusoroadeolu.astronaut.search.QueryNode;
+import io.github.kusoroadeolu.astronaut.search.QueryParser;
+import io.github.kusoroadeolu.astronaut.search.SearchCursor;
+import io.github.kusoroadeolu.astronaut.search.SearchField;
+import io.github.kusoroadeolu.astronaut.search.SnippetSearchIndex;
+import io.github.kusoroadeolu.astronaut.search.TopK;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.text.similarity.LevenshteinDistance;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
+
 
 @Slf4j
 @RequiredArgsConstructor
@@ -21,115 +35,133 @@ import java.util.stream.Collectors;
 public class SnippetQueryService {
     private final SnippetMapper snippetMapper;
     private final SnippetCache cache;
+    private final SnippetSearchIndex searchIndex;
+    private final QueryCache queryCache;
+    private static final Set<SearchField> FACET_FIELDS = EnumSet.of(SearchField.LANGUAGE, SearchField.TAG);
 
     @Value("${fuzzy-strength}")
     private int similarity;
-    private static final LevenshteinDistance DISTANCE = LevenshteinDistance.getDefaultInstance();
-
-    public List<SnippetResponse> searchBasedOnCriteria(String body) {
-        SearchCriteria criteria = parseToCriteria(body);
 
-        return cache.values().stream()
-                .filter(s -> matchesLanguage(s, criteria)
-                        || matchesTags(s, criteria)
-                        || matchesMethodNames(s, criteria)
-                        || matchesClassNames(s, criteria)
-                        || matchesFileNames(s, criteria))
-                .map(snippetMapper::toSnippetResponse)
-                .toList();
+    @Value("${search.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${search.max-suggestions:20}")
+    private int maxSuggestions;
+
+    @Value("${search.min-similarity:0.5}")
+    private double minSimilarity;
+
+    /**
+     * Searches the index and returns a single page of results ranked by relevance.
+     * </br>Every query term that matches a field adds the field's weight to the snippet's score, scaled down by how many edits
+     * the match took, so snippets matching more terms on heavier fields rank first. Only the requested page is mapped to responses.
+     * </br>Repeated queries reuse their parsed form and, until a snippet changes, their scores, so paging doesn't re-run the query.
+     * @param body the query, see {@link QueryParser} for the syntax
+     * @param limit the max number of results in the page
+     * @param cursor the cursor returned with the previous page, null for the first page
+     * @return the page, with a cursor for the next one if there are more results
+     */
+    public SearchPage searchBasedOnCriteria(String body, int limit, String cursor) {
+        cache.requireReadiness(SnippetCache.Readiness.READY);
+        SearchCursor after = cursor == null || cursor.isBlank() ? null : SearchCursor.decode(cursor);
+        int pageSize = Math.clamp(limit, 1, maxLimit);
+        Map<String, Double> scores = queryCache.scores(body, query -> searchIndex.search(query, similarity, this::loadContent));
+        if (scores == null) scores = Map.of();
+
+        //One extra result tells us whether there's a next page
+        return toPage(TopK.select(scores, pageSize + 1, after), pageSize);
     }
 
-    /*
-    * Sample syntax - tag: java concurrency; language: Java C++; name: Main Combiner and so on
-    * Syntax as is - java concurrency, no keywords here, it just tries to match on all sets
-    *
-    * */
-    SearchCriteria parseToCriteria(String body) {
-        if (body == null || body.isBlank()) return SearchCriteria.EMPTY;
-        List<String> split = Arrays.stream(body.split(";")).toList();
-        SearchCriteria criteria = new SearchCriteria();
-        for (String s : split) {
-            if (s.startsWith("tag:")) {
-                s = replaceWithBlank(s, "tag:");
-                splitAndAdd(criteria.getTags(), s);
-            } else if (s.startsWith("language:")) {
-                s = replaceWithBlank(s, "language:");
-                splitAndAdd(criteria.getLanguages(), s);
-            } else if (s.startsWith("name:")) {
-                s = replaceWithBlank(s, "name:");
-                splitAndAdd(criteria.getFileNames(), s);
-            } else if (s.startsWith("method-name:")) {
-                s = replaceWithBlank(s, "method-name:");
-                splitAndAdd(criteria.getMethodNames(), s);
-            } else if (s.startsWith("class-name:")) {
-                s = replaceWithBlank(s, "class-name:");
-                splitAndAdd(criteria.getClassNames(), s);
-            } else {
-                criteria.addAll(Arrays.stream(s.split(" ")).toList());
-            }
-        }
-
-        return criteria;
+    /**
+     * Free-text search over descriptions, file names, class names and method names, ranked with BM25.
+     * @param body the free text
+     * @param limit the max number of results in the page
+     * @param cursor the cursor returned with the previous page, null for the first page
+     * @return the page, with a cursor for the next one if there are more results
+     */
+    public SearchPage searchText(String body, int limit, String cursor) {
+        cache.requireReadiness(SnippetCache.Readiness.READY);
+        if (body == null || body.isBlank()) return new SearchPage(List.of(), null);
+        SearchCursor after = cursor == null || cursor.isBlank() ? null : SearchCursor.decode(cursor);
+        int pageSize = Math.clamp(limit, 1, maxLimit);
+        return toPage(searchIndex.searchText(body, pageSize + 1, after), pageSize);
     }
 
-    void splitAndAdd(Set<String> set, String str) {
-        var ls = Arrays.stream(str.split(" ")).map(String::toLowerCase).toList();
-        set.addAll(ls);
-    }
+    //Maps the page to responses, `top` holds one more result than the page when there's a next page
+    private SearchPage toPage(List<TopK.ScoredId> top, int pageSize) {
+        boolean hasMore = top.size() > pageSize;
+        List<TopK.ScoredId> page = hasMore ? top.subList(0, pageSize) : top;
 
-    String replaceWithBlank(String original, String replace) {
-       return original.replace(replace, "");
+        List<SnippetResponse> results = page.stream()
+                .map(r -> cache.get(r.id()))
+                .filter(Objects::nonNull)
+                .map(snippetMapper::toSnippetResponse)
+                .toList();
+        return new SearchPage(results, hasMore ? page.getLast().cursor().encode() : null);
     }
 
-    private boolean matchesLanguage(SnippetIndex s, SearchCriteria criteria) {
-        if (criteria.getLanguages().isEmpty()) return false;
-        return criteria.getLanguages()
-                .stream()
-                .map(String::toLowerCase)
-                .collect(Collectors.toSet())
-                .contains(s.getLanguage().toLowerCase());
+    /**
+     * Completes what the user has typed so far with tags, class names, method names and file names from the index.
+     * @param prefix the typed prefix
+     * @param limit the max number of suggestions
+     * @return the suggestions, the terms found in the most snippets first
+     */
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        cache.requireReadiness(SnippetCache.Readiness.READY);
+        if (prefix == null || prefix.isBlank()) return List.of();
+        return searchIndex.suggest(prefix, Math.clamp(limit, 1, maxSuggestions)).stream()
+                .map(s -> new SuggestionResponse(s.term(), s.field().keyword(), s.count()))
+                .toList();
     }
 
-    private boolean matchesTags(SnippetIndex index, SearchCriteria criteria) {
-        if (criteria.getTags().isEmpty()) return false;
-        for (String s : index.getTags()){
-            for (String ss : criteria.getTags()) {
-                if (DISTANCE.apply(s, ss) <= similarity) return true;
-            }
-        }
-
-        return false;
+    /**
+     * Finds near-duplicates of a snippet by content, e.g. other versions of the same data structure, without diffing any pair.
+     * @param id the snippet's ID
+     * @param limit the max number of results
+     * @return the similar snippets, most similar first
+     * @throws NoSuchSnippetException if there's no snippet with the ID
+     */
+    public List<SimilarSnippetResponse> findSimilar(String id, int limit) {
+        cache.requireReadiness(SnippetCache.Readiness.READY);
+        if (cache.get(id) == null) throw new NoSuchSnippetException("Failed to find a snippet with id: %s".formatted(id));
+        return searchIndex.similar(id, minSimilarity, Math.clamp(limit, 1, maxLimit)).stream()
+                .map(s -> {
+                    SnippetIndex snippet = cache.get(s.id());
+                    return snippet == null ? null : new SimilarSnippetResponse(snippetMapper.toSnippetResponse(snippet), s.similarity());
+                })
+                .filter(Objects::nonNull)
+                .toList();
     }
 
-    private boolean matchesFileNames(SnippetIndex s, SearchCriteria criteria) {
-        if (criteria.getFileNames().isEmpty()) return false;
-        for (String fileName : criteria.getFileNames()) {
-            if (DISTANCE.apply(fileName, s.getFileName()) <= similarity) return true;
-        }
-
-        return false;
+    /**
+     * Counts the snippets per language and per tag, within the query's matches if there is a query.
+     * @param body the query to count within, null or blank for every snippet
+     * @return the counts, most common values first
+     */
+    public FacetsResponse facets(String body) {
+        cache.requireReadiness(SnippetCache.Readiness.READY);
+        QueryNode query = QueryParser.parse(body);
+        Map<SearchField, Map<String, Integer>> facets = searchIndex.facets(FACET_FIELDS, query, similarity, this::loadContent);
+        return new FacetsResponse(byCount(facets.get(SearchField.LANGUAGE)), byCount(facets.get(SearchField.TAG)));
     }
 
-
-    private boolean matchesMethodNames(SnippetIndex index, SearchCriteria criteria) {
-        if (criteria.getMethodNames().isEmpty()) return false;
-        for (String s : index.getMethodNames()){
-            for (String ss : criteria.getMethodNames()) {
-                if (DISTANCE.apply(s, ss) <= similarity) return true;
-            }
-        }
-
-        return false;
+    private static Map<String, Integer> byCount(Map<String, Integer> counts) {
+        Map<String, Integer> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .forEach(e -> sorted.put(e.getKey(), e.getValue()));
+        return sorted;
     }
 
-    private boolean matchesClassNames(SnippetIndex index, SearchCriteria criteria) {
-        if (criteria.getClassNames().isEmpty()) return false;
-        for (String s : index.getClassNames()){
-            for (String ss : criteria.getClassNames()) {
-                if (DISTANCE.apply(s, ss) <= similarity) return true;
-            }
+    //Only called for the snippets the trigram index couldn't rule out, one whose content is missing just doesn't match
+    private String loadContent(String id) {
+        SnippetIndex snippet = cache.get(id);
+        if (snippet == null) return null;
+        try {
+            return cache.contentOf(snippet);
+        } catch (SnippetContentMissingException e) {
+            log.warn("Skipping snippet {} in a content search, its content is missing", id);
+            return null;
         }
-
-        return false;
     }
 }
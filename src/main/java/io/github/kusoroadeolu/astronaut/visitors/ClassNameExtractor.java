@@ -0,0 +1,26 @@
+package io.github.kusoroadeolu.astronaut.visitors;
+
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import io.github.kusoroadeolu.astronaut.entities.SnippetIndex;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+
+@Service
+public final class ClassNameExtractor implements MetadataExtractor<ClassOrInterfaceDeclaration> {
+
+    @Override
+    public Class<ClassOrInterfaceDeclaration> nodeType() {
+        return ClassOrInterfaceDeclaration.class;
+    }
+
+    @Override
+    public void extract(ClassOrInterfaceDeclaration n, Set<String> found) {
+        found.add(n.getName().asString()); //Case is kept so the search index can split camelCase names
+    }
+
+    @Override
+    public void store(SnippetIndex snippet, Set<String> found) {
+        snippet.setClassNames(found);
+    }
+}
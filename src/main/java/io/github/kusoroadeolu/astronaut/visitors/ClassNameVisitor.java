@@ -1,18 +0,0 @@
-package io.github.kusoroadeolu.astronaut.visitors;
-
-import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
-import org.springframework.stereotype.Service;
-
-import java.util.Set;
-
-@Service
-public final class ClassNameVisitor extends VoidVisitorAdapter<Set<String>> {
-
-    @Override
-    public void visit(ClassOrInterfaceDeclaration n, Set<String> arg) {
-        super.visit(n, arg);
-        arg.add(n.getName().asString().toLowerCase());
-    }
-
-}
@@ -0,0 +1,77 @@
+package io.github.kusoroadeolu.astronaut.visitors;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What {@link SymbolLexer} needs to know about a language to find its type and function names without parsing it.
+ * @param lineComments what starts a comment running to the end of the line
+ * @param blockComments whether {@code /* *}{@code /} comments exist
+ * @param quotes the characters delimiting strings, a backtick delimits a raw string
+ * @param charLiterals whether {@code '} delimits a character literal rather than a string, Rust lifetimes are told apart by their length
+ * @param tripleQuotes whether strings can be triple quoted, as in Python
+ * @param typeKeywords the keywords followed by a type name
+ * @param functionKeywords the keywords followed by a function name
+ * @param bindingKeywords the keywords followed by a variable that names a function when assigned one, as in {@code const f = () => ...}
+ * @param cStyleFunctions whether a name followed by parentheses and a body, as in {@code int main() {}}, declares a function
+ * @param classMethods whether a name followed by parentheses and a body directly inside a class body declares a method, as in
+ *                     JavaScript's {@code render() {}}
+ */
+public record LanguageGrammar(Set<String> lineComments, boolean blockComments, String quotes, boolean charLiterals, boolean tripleQuotes,
+                              Set<String> typeKeywords, Set<String> functionKeywords, Set<String> bindingKeywords,
+                              boolean cStyleFunctions, boolean classMethods) {
+
+    private static final Map<String, LanguageGrammar> BY_LANGUAGE = new HashMap<>();
+
+    static {
+        LanguageGrammar c = new LanguageGrammar(Set.of("//"), true, "\"", true, false,
+                Set.of("struct", "union", "enum"), Set.of(), Set.of(), true, false);
+        LanguageGrammar cpp = new LanguageGrammar(Set.of("//"), true, "\"", true, false,
+                Set.of("class", "struct", "union", "enum"), Set.of(), Set.of(), true, false);
+        LanguageGrammar csharp = new LanguageGrammar(Set.of("//"), true, "\"", true, false,
+                Set.of("class", "struct", "interface", "record", "enum"), Set.of(), Set.of(), true, false);
+        LanguageGrammar javascript = new LanguageGrammar(Set.of("//"), true, "\"'`", false, false,
+                Set.of("class"), Set.of("function"), Set.of("const", "let", "var"), false, true);
+        LanguageGrammar typescript = new LanguageGrammar(Set.of("//"), true, "\"'`", false, false,
+                Set.of("class", "interface", "type", "enum"), Set.of("function"), Set.of("const", "let", "var"), false, true);
+
+        //Java is parsed, its grammar is the fallback for snippets over the parse budget
+        register(new LanguageGrammar(Set.of("//"), true, "\"", true, true,
+                Set.of("class", "interface", "enum", "record"), Set.of(), Set.of(), true, false), "java");
+        register(c, "c", "objective-c");
+        register(cpp, "c++", "cuda", "arduino");
+        register(csharp, "c#");
+        register(javascript, "javascript", "jsx");
+        register(typescript, "typescript", "tsx");
+        register(new LanguageGrammar(Set.of("#"), false, "\"'", false, true,
+                Set.of("class"), Set.of("def"), Set.of(), false, false), "python");
+        register(new LanguageGrammar(Set.of("//"), true, "\"`", true, false,
+                Set.of("type"), Set.of("func"), Set.of(), false, false), "go");
+        register(new LanguageGrammar(Set.of("//"), true, "\"", true, false,
+                Set.of("struct", "enum", "trait", "union", "type"), Set.of("fn"), Set.of(), false, false), "rust");
+        register(new LanguageGrammar(Set.of("//"), true, "\"", true, true,
+                Set.of("class", "interface", "object"), Set.of("fun"), Set.of(), false, false), "kotlin");
+        register(new LanguageGrammar(Set.of("//"), true, "\"", true, true,
+                Set.of("class", "object", "trait"), Set.of("def"), Set.of(), false, false), "scala");
+        register(new LanguageGrammar(Set.of("//"), true, "\"", false, true,
+                Set.of("class", "struct", "protocol", "enum"), Set.of("func"), Set.of(), false, false), "swift");
+        register(new LanguageGrammar(Set.of("#"), false, "\"'", false, false,
+                Set.of("class", "module"), Set.of("def"), Set.of(), false, false), "ruby");
+        register(new LanguageGrammar(Set.of("//", "#"), true, "\"'", false, false,
+                Set.of("class", "interface", "trait", "enum"), Set.of("function"), Set.of(), false, false), "php");
+    }
+
+    private static void register(LanguageGrammar grammar, String... languages) {
+        for (String language : languages) BY_LANGUAGE.put(language, grammar);
+    }
+
+    /**
+     * @param language the language as GitHub names it, e.g. {@code C++}
+     * @return the language's grammar, null if there's none
+     */
+    public static LanguageGrammar forLanguage(String language) {
+        return language == null ? null : BY_LANGUAGE.get(language.toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,33 @@
+package io.github.kusoroadeolu.astronaut.visitors;
+
+import com.github.javaparser.ast.Node;
+import io.github.kusoroadeolu.astronaut.entities.SnippetIndex;
+
+import java.util.Set;
+
+/**
+ * Extracts one kind of metadata from the AST nodes of one type.
+ * </br>Extractors are Spring beans, the {@link VisitorOrchestrator} picks every one of them up and runs them all in a single traversal,
+ * so a new kind of metadata costs its own work on the nodes it's interested in rather than another walk over the whole AST.
+ * @param <N> the node type the extractor is interested in, subtypes included
+ */
+public interface MetadataExtractor<N extends Node> {
+
+    Class<N> nodeType();
+
+    /**
+     * @param node a node of the extractor's type
+     * @param found what the extractor found in the AST so far
+     */
+    void extract(N node, Set<String> found);
+
+    /**
+     * @param snippet the snippet the AST was parsed from
+     * @param found everything the extractor found in the AST
+     */
+    void store(SnippetIndex snippet, Set<String> found);
+
+    default String name() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,287 @@
+package io.github.kusoroadeolu.astronaut.visitors;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Finds the type and function names in code without parsing it, for the languages JavaParser can't handle.
+ * </br>The code is read once, front to back, skipping comments and strings. A name is taken when it follows one of the grammar's
+ * type or function keywords ({@code class Foo}, {@code def bar}, {@code func (r *T) Baz}), when a variable is assigned a function
+ * ({@code const f = () => ...}), or in C-like languages, when it's followed by parentheses and a body ({@code int main() {}}).
+ * In JavaScript and TypeScript a name followed by parentheses and a body directly inside a class body is a method. Constructors,
+ * named after the class whose body they're in or {@code constructor}, aren't taken as functions, as Java's extractors don't either.
+ * It's a heuristic, a name may be missed or a macro taken for a function, but it's a tiny fraction of a parse's cost.
+ */
+public final class SymbolLexer {
+
+    //Names followed by parentheses and a body that aren't function declarations
+    private static final Set<String> CONTROL = Set.of("if", "else", "for", "foreach", "while", "do", "switch", "case", "catch", "return",
+            "throw", "new", "delete", "sizeof", "alignof", "decltype", "typeof", "using", "lock", "fixed", "defined", "try", "synchronized",
+            "assert", "this", "super", "base");
+
+    //What may come between a TypeScript method's parameters and its body after a colon, as in {@code next(): Promise<void> {}}
+    private static final String RETURN_TYPE_PUNCTUATION = "<>[]|&.,?";
+
+    //What may come between a C-like function's parameters and its body
+    private static final Set<String> QUALIFIERS = Set.of("const", "noexcept", "override", "final", "volatile", "mutable");
+
+    private SymbolLexer() {}
+
+    /**
+     * @param content the code
+     * @param grammar the code's language
+     * @return the type and function names found in the code
+     */
+    public static Symbols extract(String content, LanguageGrammar grammar) {
+        return new Scan(content, grammar).run();
+    }
+
+    public record Symbols(Set<String> typeNames, Set<String> functionNames) {}
+
+    private enum Pending { NONE, TYPE, FUNCTION, BINDING }
+
+    private record TypeBody(String name, int depth) {}
+
+    private static final class Scan {
+        private final String s;
+        private final int n;
+        private final LanguageGrammar grammar;
+        private final Set<String> types = new HashSet<>();
+        private final Set<String> functions = new HashSet<>();
+        private final Deque<String> calls = new ArrayDeque<>(); //The name before every open parenthesis, empty if there was none
+        private final Deque<TypeBody> typeBodies = new ArrayDeque<>(); //The bodies of the types the scan is in, innermost first
+        private int i;
+        private int depth; //How many braces are open
+        private String declaredType; //A type name whose body hasn't opened yet
+
+        private Pending pending = Pending.NONE;
+        private boolean afterReceiver; //A Go receiver was skipped, only a method name may follow
+        private String lastIdentifier; //The previous token if it was a name
+        private String closedCall; //The name before the parentheses just closed, while only qualifiers followed them
+        private boolean throwsClause; //The exceptions after a closed call's throws, which may be qualified and comma separated
+        private boolean returnType; //A TypeScript method's return type after its closed call
+        private String binding; //A variable declared with a binding keyword
+        private boolean bindingAssigned;
+
+        Scan(String s, LanguageGrammar grammar) {
+            this.s = s;
+            this.n = s.length();
+            this.grammar = grammar;
+        }
+
+        Symbols run() {
+            while (i < n) {
+                char c = s.charAt(i);
+                if (Character.isWhitespace(c) || skipComment()) {
+                    if (Character.isWhitespace(c)) i++;
+                } else if (skipString()) {
+                    reset();
+                } else if (Character.isJavaIdentifierStart(c)) {
+                    int start = i;
+                    while (i < n && Character.isJavaIdentifierPart(s.charAt(i))) i++;
+                    identifier(s.substring(start, i));
+                } else {
+                    punctuation(c);
+                    i++;
+                }
+            }
+            return new Symbols(types, functions);
+        }
+
+        private void identifier(String word) {
+            if (pending == Pending.TYPE || pending == Pending.FUNCTION) {
+                boolean qualified = peek() == '.'; //def self.name, fun String.name
+                if (pending == Pending.TYPE && grammar.typeKeywords().contains(word)) return; //enum class Name
+                boolean type = pending == Pending.TYPE;
+                if (!qualified) {
+                    if (!afterReceiver || peek() == '(' || peek() == '[') (type ? types : functions).add(word);
+                    if (type) declaredType = word;
+                    pending = Pending.NONE;
+                    afterReceiver = false;
+                }
+                lastIdentifier = type ? null : word; //record Point(int x) declares a type, not a function
+                return;
+            }
+
+            if (pending == Pending.BINDING) {
+                binding = word;
+                pending = Pending.NONE;
+                lastIdentifier = word;
+                return;
+            }
+
+            if (bindingAssigned) {
+                if (word.equals("async")) return;
+                if (word.equals("function") || s.startsWith("=>", skipSpaces(i))) functions.add(binding);
+                binding = null;
+                bindingAssigned = false;
+            } else binding = null;
+
+            if (closedCall != null) {
+                if (word.equals("throws")) throwsClause = true;
+                if (throwsClause || returnType || QUALIFIERS.contains(word)) return;
+                closedCall = null;
+            }
+
+            if (grammar.typeKeywords().contains(word)) pending = Pending.TYPE;
+            else if (grammar.functionKeywords().contains(word)) pending = Pending.FUNCTION;
+            else if (grammar.bindingKeywords().contains(word)) pending = Pending.BINDING;
+            lastIdentifier = "new".equals(lastIdentifier) ? null : word; //new Name() { is an anonymous class, not a function
+        }
+
+        private void punctuation(char c) {
+            if (returnType && RETURN_TYPE_PUNCTUATION.indexOf(c) >= 0) return;
+            switch (c) {
+                case '(' -> {
+                    if (pending == Pending.FUNCTION) { //func (r *T) Name, or an anonymous function
+                        i = matching(i, '(', ')');
+                        afterReceiver = true;
+                        return;
+                    }
+                    if (bindingAssigned) { //const f = (a, b) => ...
+                        int close = matching(i, '(', ')');
+                        int next = skipSpaces(close + 1);
+                        if (s.startsWith("=>", next) || s.startsWith(":", next)) functions.add(binding);
+                        i = close;
+                        reset();
+                        return;
+                    }
+                    boolean declares = grammar.cStyleFunctions() || (grammar.classMethods() && inTypeBody());
+                    boolean named = declares && lastIdentifier != null && !CONTROL.contains(lastIdentifier);
+                    calls.push(named ? lastIdentifier : "");
+                    reset();
+                }
+                case ')' -> {
+                    String call = calls.isEmpty() ? "" : calls.pop();
+                    reset();
+                    closedCall = call.isEmpty() ? null : call;
+                }
+                case '{' -> {
+                    if (closedCall != null && !isConstructor(closedCall)) functions.add(closedCall);
+                    depth++;
+                    if (declaredType != null) typeBodies.push(new TypeBody(declaredType, depth));
+                    declaredType = null;
+                    reset();
+                }
+                case '}' -> {
+                    if (inTypeBody()) typeBodies.pop();
+                    depth = Math.max(0, depth - 1);
+                    reset();
+                }
+                case ';' -> {
+                    declaredType = null; //A forward declaration, or a type alias
+                    reset();
+                }
+                case ':' -> {
+                    if (closedCall != null && grammar.classMethods() && inTypeBody()) returnType = true;
+                    else reset();
+                }
+                case '<' -> {
+                    if (pending == Pending.FUNCTION) i = matching(i, '<', '>'); //fun <T> name
+                    else reset();
+                }
+                case '=' -> {
+                    if (binding != null && !bindingAssigned && !s.startsWith("==", i)) {
+                        bindingAssigned = true;
+                        lastIdentifier = null;
+                    } else reset();
+                }
+                case '.', '*' -> {
+                    if (pending != Pending.FUNCTION && !throwsClause) reset();
+                }
+                case ',' -> {
+                    if (!throwsClause) reset();
+                }
+                default -> reset();
+            }
+        }
+
+        private void reset() {
+            pending = Pending.NONE;
+            afterReceiver = false;
+            lastIdentifier = null;
+            closedCall = null;
+            throwsClause = false;
+            returnType = false;
+            binding = null;
+            bindingAssigned = false;
+        }
+
+        //Whether the scan is directly in a type's body rather than in something nested in it
+        private boolean inTypeBody() {
+            return !typeBodies.isEmpty() && typeBodies.peek().depth() == depth;
+        }
+
+        private boolean isConstructor(String name) {
+            return inTypeBody() && (name.equals(typeBodies.peek().name()) || (grammar.classMethods() && name.equals("constructor")));
+        }
+
+        private boolean skipComment() {
+            for (String comment : grammar.lineComments()) {
+                if (s.startsWith(comment, i)) {
+                    int end = s.indexOf('\n', i);
+                    i = end < 0 ? n : end;
+                    return true;
+                }
+            }
+            if (grammar.blockComments() && s.startsWith("/*", i)) {
+                int end = s.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 2;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean skipString() {
+            char c = s.charAt(i);
+            if (c == '\'' && grammar.charLiterals()) {
+                //'x' and '\n' are literals, anything else (a Rust lifetime) is just skipped
+                int end = i + 2 < n && s.charAt(i + 1) == '\\' ? s.indexOf('\'', i + 2) : i + 2;
+                i = end >= 0 && end < n && end - i <= 10 && s.charAt(end) == '\'' ? end + 1 : i + 1;
+                return true;
+            }
+            if (grammar.quotes().indexOf(c) < 0) return false;
+
+            String triple = String.valueOf(c).repeat(3);
+            if (grammar.tripleQuotes() && s.startsWith(triple, i)) {
+                int end = s.indexOf(triple, i + 3);
+                i = end < 0 ? n : end + 3;
+                return true;
+            }
+
+            boolean raw = c == '`';
+            int j = i + 1;
+            while (j < n) {
+                char ch = s.charAt(j);
+                if (ch == c || (!raw && ch == '\n')) break; //An unterminated string ends with its line
+                j += !raw && ch == '\\' ? 2 : 1;
+            }
+            i = Math.min(j + 1, n);
+            return true;
+        }
+
+        private char peek() {
+            int j = skipSpaces(i);
+            return j < n ? s.charAt(j) : 0;
+        }
+
+        private int skipSpaces(int from) {
+            int j = from;
+            while (j < n && Character.isWhitespace(s.charAt(j))) j++;
+            return j;
+        }
+
+        //The index of the bracket closing the one at `from`, the last index if it's never closed
+        private int matching(int from, char open, char close) {
+            int depth = 0;
+            for (int j = from; j < n; j++) {
+                char ch = s.charAt(j);
+                if (ch == open) depth++;
+                else if (ch == close && --depth == 0) return j;
+            }
+            return n - 1;
+        }
+    }
+}
@@ -1,45 +1,97 @@
 package io.github.kusoroadeolu.astronaut.visitors;
 
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
 import io.github.kusoroadeolu.astronaut.entities.SnippetIndex;
-import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Runs every {@link MetadataExtractor} over a compilation unit in one fused traversal.
+ * </br>Each node is only handed to the extractors interested in its type, the extractors per concrete node class are resolved once
+ * and cached. The time every extractor spends on its nodes is recorded, see {@link #timings()}.
+ */
 @Service
-@RequiredArgsConstructor
 public final class VisitorOrchestrator {
 
-    private final ClassNameVisitor classNameVisitor;
-    private final MethodNameVisitor methodNameVisitor;
+    private static final int[] NONE = new int[0];
+
+    private final List<MetadataExtractor<?>> extractors;
+    private final Map<Class<?>, int[]> interested;
+    private final LongAdder[] calls;
+    private final LongAdder[] nanos;
+
+    public VisitorOrchestrator(List<MetadataExtractor<?>> extractors) {
+        this.extractors = List.copyOf(extractors);
+        this.interested = new ConcurrentHashMap<>();
+        this.calls = new LongAdder[extractors.size()];
+        this.nanos = new LongAdder[extractors.size()];
+        for (int i = 0; i < extractors.size(); i++) {
+            calls[i] = new LongAdder();
+            nanos[i] = new LongAdder();
+        }
+    }
 
     /**
-     * Visits the compilation unit and extracts all code metadata into the snippet.
-     *
-     * This method runs all visitors to gather information about the code, including class names and method names
-     * The extracted data is then stored in the provided snippet object.
-     *
+     * Walks the compilation unit once, handing every node to the extractors interested in it.
      * @param unit the code to analyze
-     * @param snippet the object to store the extracted metadata
+     * @return what each extractor found, by extractor name
      */
-    public void visitAllVisitors(CompilationUnit unit, SnippetIndex snippet){
-        setSnippetClassName(unit, snippet);
-        setSnippetMethodName(unit, snippet);
-    }
+    @SuppressWarnings("unchecked")
+    public Map<String, Set<String>> extract(CompilationUnit unit) {
+        List<Set<String>> found = new ArrayList<>(extractors.size());
+        for (int i = 0; i < extractors.size(); i++) found.add(new HashSet<>());
 
+        unit.walk(node -> {
+            for (int i : interested.computeIfAbsent(node.getClass(), this::interestedIn)) {
+                long start = System.nanoTime();
+                ((MetadataExtractor<Node>) extractors.get(i)).extract(node, found.get(i));
+                nanos[i].add(System.nanoTime() - start);
+                calls[i].increment();
+            }
+        });
 
-    private void setSnippetClassName(CompilationUnit unit, SnippetIndex snippet){
-        final HashSet<String> classNames = new HashSet<>();
-        this.classNameVisitor.visit(unit, classNames);
-        snippet.setClassNames(classNames);
+        Map<String, Set<String>> extracted = new HashMap<>();
+        for (int i = 0; i < extractors.size(); i++) extracted.put(extractors.get(i).name(), found.get(i));
+        return extracted;
     }
 
+    /**
+     * Stores what the extractors found into the snippet, each extractor gets its own copy of what it found.
+     * @param extracted what {@link #extract(CompilationUnit)} returned
+     * @param snippet the object to store the extracted metadata
+     */
+    public void store(Map<String, Set<String>> extracted, SnippetIndex snippet) {
+        for (MetadataExtractor<?> extractor : extractors) {
+            Set<String> found = extracted.get(extractor.name());
+            extractor.store(snippet, found == null ? new HashSet<>() : new HashSet<>(found));
+        }
+    }
+
+    //Time every extractor spent on its nodes since startup
+    public List<ExtractorTiming> timings() {
+        List<ExtractorTiming> timings = new ArrayList<>(extractors.size());
+        for (int i = 0; i < extractors.size(); i++) timings.add(new ExtractorTiming(extractors.get(i).name(), calls[i].sum(), nanos[i].sum()));
+        return timings;
+    }
 
-    private void setSnippetMethodName(CompilationUnit unit, SnippetIndex snippet){
-        final HashSet<String> methodNames = new HashSet<>();
-        this.methodNameVisitor.visit(unit, methodNames);
-        snippet.setMethodNames(methodNames);
+    private int[] interestedIn(Class<?> nodeClass) {
+        int[] indexes = new int[extractors.size()];
+        int size = 0;
+        for (int i = 0; i < extractors.size(); i++) {
+            if (extractors.get(i).nodeType().isAssignableFrom(nodeClass)) indexes[size++] = i;
+        }
+        return size == 0 ? NONE : Arrays.copyOf(indexes, size);
     }
 
-}
\ No newline at end of file
+    public record ExtractorTiming(String extractor, long calls, long nanos) {}
+}
@@ -0,0 +1,100 @@
+package io.github.kusoroadeolu.astronaut.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.kusoroadeolu.astronaut.CompressionUtils;
+import io.github.kusoroadeolu.astronaut.compression.Codecs;
+import io.github.kusoroadeolu.astronaut.compression.ContentCodec;
+import io.github.kusoroadeolu.astronaut.entities.SnippetIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compression ratio and throughput of every {@link ContentCodec} over the snippets in index.json and over synthetic snippets,
+ * neither of which the current dictionary was trained on.
+ * </br>Each op encodes or decodes the whole corpus, the ratio (compressed / raw bytes) is printed once per trial.
+ * </br>Run {@link #main(String[])} from the IDE, or {@code java -cp target/test-classes:<deps> ...CodecBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class CodecBenchmark {
+
+    private static final Map<String, ContentCodec> CODECS = Map.of(
+            "gzip", Codecs.GZIP,
+            "deflate", Codecs.DEFLATE,
+            "dictionary", Codecs.DICTIONARY
+    );
+
+    @Param({"gzip", "deflate", "dictionary"})
+    private String codecName;
+
+    @Param({"index", "synthetic"})
+    private String corpus;
+
+    private ContentCodec codec;
+    private List<byte[]> raw;
+    private List<byte[]> encoded;
+
+    @Setup
+    public void encodeCorpus() throws IOException {
+        codec = CODECS.get(codecName);
+        raw = corpus.equals("index") ? indexSnippets() : syntheticSnippets();
+        encoded = new ArrayList<>(raw.size());
+        long rawBytes = 0, encodedBytes = 0;
+        for (byte[] content : raw) {
+            byte[] e = codec.encode(content);
+            encoded.add(e);
+            rawBytes += content.length;
+            encodedBytes += e.length;
+        }
+        System.out.printf("%n%s over %s: %d -> %d bytes, ratio %.3f%n", codec, corpus, rawBytes, encodedBytes, (double) encodedBytes / rawBytes);
+    }
+
+    @Benchmark
+    public void encode(Blackhole bh) {
+        for (byte[] content : raw) bh.consume(codec.encode(content));
+    }
+
+    @Benchmark
+    public void decode(Blackhole bh) {
+        for (byte[] content : encoded) bh.consume(codec.decode(content));
+    }
+
+    private static List<byte[]> indexSnippets() throws IOException {
+        List<byte[]> snippets = new ArrayList<>();
+        try (InputStream in = CodecBenchmark.class.getResourceAsStream("/index.json")) {
+            for (JsonNode snippet : new ObjectMapper().readTree(in)) {
+                snippets.add(Codecs.decode(Base64.getDecoder().decode(snippet.get("content").asText())));
+            }
+        }
+        return snippets;
+    }
+
+    private static List<byte[]> syntheticSnippets() {
+        List<byte[]> snippets = new ArrayList<>();
+        for (SnippetIndex s : SyntheticSnippets.generateWithContent(1000, 42)) {
+            snippets.add(CompressionUtils.decompress(s.getCompressedContent()).getBytes(StandardCharsets.UTF_8));
+        }
+        return snippets;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.kusoroadeolu.astronaut.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.github.kusoroadeolu.astronaut.ASTronautApplication.SnippetCacheLoader;
+import io.github.kusoroadeolu.astronaut.ContentCache;
+import io.github.kusoroadeolu.astronaut.ContentStore;
+import io.github.kusoroadeolu.astronaut.SnippetCache;
+import io.github.kusoroadeolu.astronaut.entities.SnippetIndex;
+import io.github.kusoroadeolu.astronaut.search.SnippetSearchIndex;
+import io.github.kusoroadeolu.astronaut.services.IndexFileService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures startup, from the snapshot on disk to a fully indexed cache, for the old blocking load (read the whole snapshot into a list,
+ * then add every snippet on one thread) against the {@link SnippetCacheLoader}'s streamed, parallel hydration.
+ * </br>The snapshot only holds metadata and the content is already in the content store, like after a compaction.
+ * </br>Run {@link #main(String[])} from the IDE, or {@code java -cp target/test-classes:<deps> ...IndexLoadBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class IndexLoadBenchmark {
+
+    @Param({"10000", "100000"})
+    private int snippets;
+
+    //Configured like Spring Boot's mapper
+    private final ObjectMapper mapper = JsonMapper.builder().findAndAddModules().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).build();
+    private Path dir;
+    private Path snapshot;
+    private SnippetCache cache;
+    private IndexFileService indexFileService;
+    private SnippetCacheLoader loader;
+
+    @Setup(Level.Trial)
+    public void writeSnapshot() throws IOException {
+        dir = Files.createTempDirectory("index-load");
+        snapshot = dir.resolve("index.json");
+        List<SnippetIndex> corpus = SyntheticSnippets.generateWithContent(snippets, 42);
+        ContentStore store = new ContentStore(dir.resolve("blobs"));
+        for (SnippetIndex s : corpus) {
+            store.store(s.getId(), s.getContentHash(), s.getCompressedContent());
+            s.setContent(null);
+        }
+        mapper.writeValue(snapshot.toFile(), corpus);
+    }
+
+    @Setup(Level.Invocation)
+    public void emptyCache() {
+        ContentStore store = new ContentStore(dir.resolve("blobs"));
+        cache = new SnippetCache(new SnippetSearchIndex(), store, new ContentCache(0));
+        indexFileService = new IndexFileService(mapper, cache, store);
+        ReflectionTestUtils.setField(indexFileService, "indexPath", snapshot.toString());
+        ReflectionTestUtils.setField(indexFileService, "logPath", dir.resolve("index.json.log").toString());
+        ReflectionTestUtils.setField(indexFileService, "format", IndexFileService.IndexFormat.JSON);
+        ReflectionTestUtils.setField(indexFileService, "compactionMinRecords", Integer.MAX_VALUE);
+        ReflectionTestUtils.setField(indexFileService, "loadChunkSize", 1000);
+        loader = new SnippetCacheLoader(cache, store, indexFileService, null);
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeLog() throws Exception {
+        indexFileService.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSnapshot() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) Files.delete(path);
+        }
+    }
+
+    @Benchmark
+    public SnippetCache blockingLoad() throws IOException {
+        List<SnippetIndex> loaded = mapper.readValue(snapshot.toFile(), new TypeReference<>() {});
+        cache.addAll(loaded);
+        return cache;
+    }
+
+    @Benchmark
+    public SnippetCache streamingParallelLoad() throws InterruptedException {
+        loader.load();
+        return cache;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IndexLoadBenchmark.class.getSimpleName()).build()).run();
+    }
+}
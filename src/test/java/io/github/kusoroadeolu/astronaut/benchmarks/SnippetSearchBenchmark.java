@@ -0,0 +1,76 @@
+package io.github.kusoroadeolu.astronaut.benchmarks;
+
+import io.github.kusoroadeolu.astronaut.entities.SnippetIndex;
+import io.github.kusoroadeolu.astronaut.search.QueryNode;
+import io.github.kusoroadeolu.astronaut.search.QueryParser;
+import io.github.kusoroadeolu.astronaut.search.SnippetSearchIndex;
+import org.apache.commons.text.similarity.LevenshteinDistance;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old full levenshtein scan over every snippet against the {@link SnippetSearchIndex} lookups for the same query.
+ * </br>Run {@link #main(String[])} from the IDE, or {@code java -cp target/test-classes:<deps> ...SnippetSearchBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class SnippetSearchBenchmark {
+
+    private static final LevenshteinDistance DISTANCE = LevenshteinDistance.getDefaultInstance();
+    private static final int SIMILARITY = 2;
+    private static final List<String> QUERY = List.of("concurency", "unrolledconcurrentlist", "parse");
+
+    @Param({"1000", "10000", "100000"})
+    private int snippets;
+
+    private List<SnippetIndex> corpus;
+    private SnippetSearchIndex index;
+    private QueryNode query;
+
+    @Setup
+    public void setup() {
+        corpus = SyntheticSnippets.generate(snippets, 42);
+        index = new SnippetSearchIndex();
+        corpus.forEach(s -> index.index(s, s::getCompressedContent));
+        query = QueryParser.parse(String.join(" ", QUERY));
+    }
+
+    @Benchmark
+    public Set<String> linearScan() {
+        Set<String> ids = new HashSet<>();
+        for (SnippetIndex s : corpus) {
+            if (matches(s.getTags()) || matches(s.getMethodNames()) || matches(s.getClassNames()) || matches(Set.of(s.getFileName()))) ids.add(s.getId());
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public Map<String, Double> invertedIndex() {
+        return index.search(query, SIMILARITY, _ -> null);
+    }
+
+    private boolean matches(Set<String> terms) {
+        for (String s : terms) {
+            for (String q : QUERY) {
+                if (DISTANCE.apply(s, q) <= SIMILARITY) return true;
+            }
+        }
+        return false;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SnippetSearchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.kusoroadeolu.astronaut.benchmarks;
+
+import io.github.kusoroadeolu.astronaut.CompressionUtils;
+import io.github.kusoroadeolu.astronaut.entities.SnippetIndex;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+//Generates a deterministic corpus of snippets shaped like the ones in index.json
+final class SyntheticSnippets {
+
+    static final String[] TAGS = {"concurrency", "collections", "spring", "parsing", "benchmark", "io", "streams", "locks", "cache", "graphs", "trees", "sorting"};
+    static final String[] LANGUAGES = {"Java", "Python", "Go", "TypeScript", "C++", "Rust"};
+    static final String[] WORDS = {"unrolled", "concurrent", "list", "lock", "free", "queue", "stack", "ring", "buffer", "map", "tree", "node", "skip", "cache", "parser", "lexer", "visitor", "reader", "writer", "pool"};
+
+    private SyntheticSnippets() {}
+
+    static List<SnippetIndex> generate(int count, long seed) {
+        Random random = new Random(seed);
+        List<SnippetIndex> snippets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String className = identifier(random, 3);
+            snippets.add(SnippetIndex.builder()
+                    .id("gist-%08d".formatted(i))
+                    .fileName(className + ".java")
+                    .description("A %s %s".formatted(pick(random, WORDS), pick(random, WORDS)))
+                    .language(pick(random, LANGUAGES))
+                    .tags(pickSet(random, TAGS, 3))
+                    .classNames(Set.of(className.toLowerCase()))
+                    .methodNames(methodNames(random))
+                    .createdAt("2026-06-03T05:43:35Z")
+                    .updatedAt("2026-06-03T05:43:35Z")
+                    .build());
+        }
+        return snippets;
+    }
+
+    //Same snippets with a small class as content, every method of the snippet gets a body
+    static List<SnippetIndex> generateWithContent(int count, long seed) {
+        List<SnippetIndex> snippets = generate(count, seed);
+        Random random = new Random(seed);
+        for (SnippetIndex s : snippets) {
+            StringBuilder content = new StringBuilder("public class ").append(s.getFileName(), 0, s.getFileName().length() - 5).append(" {\n");
+            for (String method : s.getMethodNames()) {
+                content.append("    int ").append(method).append("(int ").append(pick(random, WORDS)).append(") {\n")
+                        .append("        return ").append(pick(random, WORDS)).append(".size() + ").append(random.nextInt(100)).append(";\n")
+                        .append("    }\n");
+            }
+            String source = content.append("}\n").toString();
+            s.setContent(CompressionUtils.compressToBase64(source));
+            s.setContentHash(CompressionUtils.hash(source));
+        }
+        return snippets;
+    }
+
+    private static Set<String> methodNames(Random random) {
+        Set<String> names = new HashSet<>();
+        for (int i = 0, n = 1 + random.nextInt(8); i < n; i++) names.add(identifier(random, 2).toLowerCase());
+        return names;
+    }
+
+    private static String identifier(Random random, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            String word = pick(random, WORDS);
+            sb.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+        }
+        return sb.toString();
+    }
+
+    private static Set<String> pickSet(Random random, String[] values, int max) {
+        Set<String> picked = new HashSet<>();
+        for (int i = 0, n = random.nextInt(max + 1); i < n; i++) picked.add(pick(random, values));
+        return picked;
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BkTreeTest {
+
+    @Test
+    void distance_countsInsertionsDeletionsAndSubstitutions() {
+        assertEquals(0, BkTree.distance("queue", "queue", Integer.MAX_VALUE));
+        assertEquals(1, BkTree.distance("queue", "queues", Integer.MAX_VALUE));
+        assertEquals(1, BkTree.distance("queue", "quele", Integer.MAX_VALUE));
+        assertEquals(3, BkTree.distance("kitten", "sitting", Integer.MAX_VALUE));
+        assertEquals(5, BkTree.distance("", "queue", Integer.MAX_VALUE));
+    }
+
+    @Test
+    void distance_bailsOutPastTheLimit() {
+        assertTrue(BkTree.distance("concurrency", "cache", 2) > 2);
+        assertTrue(BkTree.distance("a", "abcdef", 2) > 2);
+        assertEquals(2, BkTree.distance("cache", "caches!", 2));
+    }
+
+    @Test
+    void search_findsExactlyTheTermsWithinTheDistance() {
+        Random random = new Random(7);
+        List<String> vocabulary = new ArrayList<>();
+        BkTree tree = new BkTree();
+        for (int i = 0; i < 2000; i++) {
+            String term = randomTerm(random);
+            vocabulary.add(term);
+            tree.add(term);
+        }
+
+        for (int k = 0; k <= 2; k++) {
+            for (int q = 0; q < 50; q++) {
+                String query = randomTerm(random);
+                int maxDistance = k;
+                Set<String> expected = vocabulary.stream()
+                        .filter(t -> BkTree.distance(t, query, Integer.MAX_VALUE) <= maxDistance)
+                        .collect(Collectors.toSet());
+                Map<String, Integer> found = tree.search(query, k).stream()
+                        .collect(Collectors.toMap(BkTree.TermMatch::term, BkTree.TermMatch::distance));
+
+                assertEquals(expected, found.keySet(), "within %d of %s".formatted(k, query));
+                found.forEach((term, d) -> assertEquals(BkTree.distance(term, query, Integer.MAX_VALUE), d));
+            }
+        }
+    }
+
+    @Test
+    void remove_hidesTheTermAndSurvivesRebuilds() {
+        BkTree tree = new BkTree();
+        List<String> terms = List.of("map", "mop", "mat", "cat", "hat", "maps", "mapping");
+        terms.forEach(tree::add);
+
+        tree.remove("mop");
+        assertEquals(Set.of("map", "mat", "maps"), termsWithin(tree, "map", 1));
+
+        //Removing most terms rebuilds the tree from the live ones
+        List.of("mat", "cat", "hat", "maps").forEach(tree::remove);
+        assertEquals(Set.of("map"), termsWithin(tree, "map", 1));
+        assertEquals(Set.of("mapping"), termsWithin(tree, "mapping", 0));
+
+        tree.add("mop");
+        assertEquals(Set.of("map", "mop"), termsWithin(tree, "map", 1));
+    }
+
+    private static Set<String> termsWithin(BkTree tree, String term, int k) {
+        Set<String> terms = new HashSet<>();
+        tree.search(term, k).forEach(m -> terms.add(m.term()));
+        return terms;
+    }
+
+    private static String randomTerm(Random random) {
+        int length = 3 + random.nextInt(5);
+        StringBuilder term = new StringBuilder(length);
+        for (int i = 0; i < length; i++) term.append((char) ('a' + random.nextInt(6)));
+        return term.toString();
+    }
+}
@@ -0,0 +1,96 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Bm25IndexTest {
+
+    @Test
+    void search_ranksShorterDocsHigherForTheSameFrequency() {
+        Bm25Index index = new Bm25Index();
+        index.add(0, Map.of("queue", 1, "lock", 1, "free", 1, "ring", 1, "buffer", 1, "ordered", 1));
+        index.add(1, Map.of("queue", 1, "bounded", 1));
+        index.add(2, Map.of("cache", 1));
+
+        assertEquals(List.of("doc-1", "doc-0"), ids(index.search(List.of("queue"), 10, null, Bm25IndexTest::id)));
+    }
+
+    @Test
+    void search_weighsRareTermsOverCommonOnes() {
+        Bm25Index index = new Bm25Index();
+        for (int doc = 0; doc < 10; doc++) index.add(doc, Map.of("java", 1, "filler%d".formatted(doc), 1));
+        index.add(10, Map.of("java", 1, "trie", 1));
+        index.add(11, Map.of("java", 2, "other", 1));
+
+        assertEquals("doc-10", index.search(List.of("java", "trie"), 1, null, Bm25IndexTest::id).getFirst().id());
+    }
+
+    @Test
+    void search_matchesExhaustiveScoringWhilePruning() {
+        Random random = new Random(3);
+        Bm25Index index = new Bm25Index();
+        String[] vocabulary = {"map", "hash", "tree", "list", "queue", "lock", "node", "graph", "sort", "heap"};
+        for (int doc = 0; doc < 400; doc++) {
+            Map<String, Integer> terms = new HashMap<>();
+            int length = 1 + random.nextInt(6);
+            for (int i = 0; i < length; i++) terms.merge(vocabulary[random.nextInt(vocabulary.length)], 1 + random.nextInt(2), Integer::sum);
+            index.add(doc, terms);
+        }
+
+        List<String> query = List.of("hash", "heap", "graph");
+        //With k past the number of docs nothing can be pruned, so this is the exhaustive ranking
+        List<TopK.ScoredId> all = index.search(query, 1000, null, Bm25IndexTest::id);
+        List<TopK.ScoredId> top = index.search(query, 10, null, Bm25IndexTest::id);
+
+        assertEquals(all.subList(0, 10), top);
+    }
+
+    @Test
+    void search_pagesWithCursorsWithoutRepeatsOrGaps() {
+        Bm25Index index = new Bm25Index();
+        for (int doc = 0; doc < 50; doc++) index.add(doc, Map.of("queue", 1 + doc % 3, "padding", 1 + doc % 4));
+
+        List<TopK.ScoredId> all = index.search(List.of("queue"), 100, null, Bm25IndexTest::id);
+        List<TopK.ScoredId> paged = new ArrayList<>();
+        SearchCursor cursor = null;
+        for (int page = 0; page < 10 && paged.size() < all.size(); page++) {
+            List<TopK.ScoredId> results = index.search(List.of("queue"), 7, cursor, Bm25IndexTest::id);
+            paged.addAll(results);
+            cursor = results.getLast().cursor();
+        }
+
+        assertEquals(all, paged);
+    }
+
+    @Test
+    void remove_dropsTheDocFromResults() {
+        Bm25Index index = new Bm25Index();
+        index.add(0, Map.of("queue", 1));
+        index.add(1, Map.of("queue", 1));
+        index.remove(0);
+
+        assertEquals(List.of("doc-1"), ids(index.search(List.of("queue"), 10, null, Bm25IndexTest::id)));
+        assertTrue(index.search(List.of("missing"), 10, null, Bm25IndexTest::id).isEmpty());
+    }
+
+    @Test
+    void queryTerms_splitsWordsLikeIdentifiers() {
+        assertTrue(Bm25Index.queryTerms("ConcurrentHashMap usage").containsAll(List.of("concurrent", "hash", "map", "usage")));
+    }
+
+    private static String id(int doc) {
+        return "doc-%d".formatted(doc);
+    }
+
+    private static List<String> ids(List<TopK.ScoredId> results) {
+        return results.stream().map(TopK.ScoredId::id).toList();
+    }
+}
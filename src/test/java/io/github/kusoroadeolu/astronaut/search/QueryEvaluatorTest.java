@@ -0,0 +1,92 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import io.github.kusoroadeolu.astronaut.entities.SnippetIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.github.kusoroadeolu.astronaut.CompressionUtils.compress;
+import static io.github.kusoroadeolu.astronaut.CompressionUtils.hash;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//Runs parsed queries through SnippetSearchIndex, which hands them to QueryEvaluator
+class QueryEvaluatorTest {
+
+    private final SnippetSearchIndex index = new SnippetSearchIndex();
+    private final Map<String, String> contents = new HashMap<>();
+    private final Map<String, Integer> loads = new HashMap<>();
+
+    @BeforeEach
+    void indexSnippets() {
+        add("queue", "java", Set.of("concurrency"), Set.of("BlockingQueue"), "class BlockingQueue { void put() {} }");
+        add("cache", "java", Set.of("caching"), Set.of("LruCache"), "class LruCache { synchronized void put() {} }");
+        add("pool", "go", Set.of("concurrency"), Set.of("WorkerPool"), "type WorkerPool struct {}");
+        add("notes", "markdown", Set.of(), Set.of(), "nothing to see");
+    }
+
+    @Test
+    void search_intersectsAdjacentClauses() {
+        assertEquals(Set.of("queue"), search("tag: concurrency language: java", 0).keySet());
+    }
+
+    @Test
+    void search_unitesSemicolonSeparatedClauses() {
+        assertEquals(Set.of("queue", "cache", "pool"), search("tag: concurrency; tag: caching", 0).keySet());
+    }
+
+    @Test
+    void search_notSubtractsFromEverySnippetOrFromTheOtherClauses() {
+        assertEquals(Set.of("cache", "notes"), search("NOT tag: concurrency", 0).keySet());
+        assertEquals(Set.of("pool"), search("tag: concurrency AND NOT language: java", 0).keySet());
+    }
+
+    @Test
+    void search_fuzzyMatchesScoreLowerThanExactOnes() {
+        assertEquals(Set.of(), search("class-name: lrucahce", 0).keySet());
+
+        Map<String, Double> exact = search("class-name: lrucache", 2);
+        Map<String, Double> fuzzy = search("class-name: lrucahce", 2);
+        assertEquals(Set.of("cache"), fuzzy.keySet());
+        assertTrue(fuzzy.get("cache") < exact.get("cache"));
+    }
+
+    @Test
+    void search_onlyLoadsContentOfSnippetsTheOtherClausesKept() {
+        assertEquals(Set.of("cache"), search("language: java AND content: synchronized", 0).keySet());
+        assertEquals(Set.of("cache"), loads.keySet());
+    }
+
+    @Test
+    void search_scoresHeavierFieldsHigher() {
+        add("named", "java", Set.of(), Set.of("Concurrency"), "class Concurrency {}");
+
+        Map<String, Double> scores = search("concurrency", 0);
+        assertTrue(scores.get("named") > scores.get("queue"));
+    }
+
+    private Map<String, Double> search(String query, int fuzzyDistance) {
+        return index.search(QueryParser.parse(query), fuzzyDistance, id -> {
+            loads.merge(id, 1, Integer::sum);
+            return contents.get(id);
+        });
+    }
+
+    private void add(String id, String language, Set<String> tags, Set<String> classNames, String content) {
+        SnippetIndex snippet = SnippetIndex.builder()
+                .id(id)
+                .fileName(id + ".txt")
+                .language(language)
+                .tags(tags)
+                .classNames(classNames)
+                .methodNames(Set.of())
+                .contentHash(hash(content))
+                .build();
+        contents.put(id, content);
+        index.index(snippet, () -> compress(content));
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import io.github.kusoroadeolu.astronaut.exceptions.InvalidQueryException;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryParserTest {
+
+    @Test
+    void parse_adjacentClausesBindTighterThanSemicolons() {
+        QueryNode parsed = QueryParser.parse("tag: a language: b; name: c");
+
+        assertEquals(new QueryNode.Or(List.of(
+                new QueryNode.And(List.of(terms(SearchField.TAG, "a"), terms(SearchField.LANGUAGE, "b"))),
+                terms(SearchField.FILE_NAME, "c"))), parsed);
+    }
+
+    @Test
+    void parse_andBindsTighterThanOr() {
+        QueryNode parsed = QueryParser.parse("tag: a OR name: b AND class-name: c");
+
+        assertEquals(new QueryNode.Or(List.of(
+                terms(SearchField.TAG, "a"),
+                new QueryNode.And(List.of(terms(SearchField.FILE_NAME, "b"), terms(SearchField.CLASS_NAME, "c"))))), parsed);
+    }
+
+    @Test
+    void parse_notAppliesToTheNextClauseOnly() {
+        QueryNode parsed = QueryParser.parse("NOT tag: a name: b");
+
+        assertEquals(new QueryNode.And(List.of(new QueryNode.Not(terms(SearchField.TAG, "a")), terms(SearchField.FILE_NAME, "b"))), parsed);
+    }
+
+    @Test
+    void parse_parenthesesGroupAnOrUnderNot() {
+        QueryNode parsed = QueryParser.parse("tag: a AND NOT (name: b; class-name: c)");
+
+        assertEquals(new QueryNode.And(List.of(
+                terms(SearchField.TAG, "a"),
+                new QueryNode.Not(new QueryNode.Or(List.of(terms(SearchField.FILE_NAME, "b"), terms(SearchField.CLASS_NAME, "c")))))), parsed);
+    }
+
+    @Test
+    void parse_bareWordsSearchEveryNameFieldLowerCased() {
+        assertEquals(new QueryNode.Terms(QueryParser.BARE_FIELDS, List.of("hash", "map")), QueryParser.parse("Hash MAP"));
+    }
+
+    @Test
+    void parse_contentValueRunsToTheNextSemicolonUnlessQuoted() {
+        QueryNode.Or parsed = assertInstanceOf(QueryNode.Or.class, QueryParser.parse("content: new Thread(r); regex: \"abc;bcd\""));
+
+        ContentQuery literal = assertInstanceOf(QueryNode.Content.class, parsed.children().get(0)).query();
+        ContentQuery regex = assertInstanceOf(QueryNode.Content.class, parsed.children().get(1)).query();
+        assertEquals(List.of(List.of("new thread(r)")), literal.branches());
+        assertTrue(regex.matches("x = \"abc;bcd\""));
+        assertFalse(regex.matches("abc bcd"));
+    }
+
+    @Test
+    void parse_ignoresTrailingSeparatorsAndBlankQueries() {
+        assertEquals(terms(SearchField.TAG, "java"), QueryParser.parse("tag: java;"));
+        assertNull(QueryParser.parse("   "));
+    }
+
+    @Test
+    void parse_rejectsMalformedQueries() {
+        assertThrows(InvalidQueryException.class, () -> QueryParser.parse("(tag: a"));
+        assertThrows(InvalidQueryException.class, () -> QueryParser.parse("tag: a )"));
+        assertThrows(InvalidQueryException.class, () -> QueryParser.parse("tag:"));
+        assertThrows(InvalidQueryException.class, () -> QueryParser.parse("tag: a AND NOT"));
+        assertThrows(InvalidQueryException.class, () -> QueryParser.parse("content: \"unterminated"));
+    }
+
+    private static QueryNode.Terms terms(SearchField field, String... words) {
+        return new QueryNode.Terms(EnumSet.of(field), List.of(words));
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.kusoroadeolu.astronaut.search;
+
+import io.github.kusoroadeolu.astronaut.exceptions.InvalidQueryException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TopKTest {
+
+    @Test
+    void select_returnsTheBestResultsHighestScoreThenLowestId() {
+        Map<String, Double> scores = Map.of("b", 2.0, "a", 2.0, "c", 5.0, "d", 1.0);
+
+        assertEquals(List.of(new TopK.ScoredId("c", 5.0), new TopK.ScoredId("a", 2.0), new TopK.ScoredId("b", 2.0)),
+                TopK.select(scores, 3, null));
+    }
+
+    @Test
+    void select_pagesThroughEveryResultOnceInRankingOrder() {
+        //Few distinct scores, so most results tie and only the ID orders them
+        Random random = new Random(11);
+        Map<String, Double> scores = new HashMap<>();
+        for (int i = 0; i < 500; i++) scores.put("snippet-%d".formatted(i), (double) random.nextInt(5));
+
+        List<TopK.ScoredId> expected = new ArrayList<>();
+        scores.forEach((id, score) -> expected.add(new TopK.ScoredId(id, score)));
+        expected.sort(TopK.RANKING);
+
+        List<TopK.ScoredId> paged = new ArrayList<>();
+        SearchCursor cursor = null;
+        while (true) {
+            List<TopK.ScoredId> page = TopK.select(scores, 37, cursor);
+            paged.addAll(page);
+            if (page.size() < 37) break;
+            //Cursors go through their wire form, like they do between requests
+            cursor = SearchCursor.decode(page.getLast().cursor().encode());
+        }
+
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    void cursor_roundTripsThroughItsEncodedForm() {
+        SearchCursor cursor = new SearchCursor(0.1 + 0.2, "gist|with|pipes");
+
+        assertEquals(cursor, SearchCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void cursor_rejectsTamperedInput() {
+        assertThrows(InvalidQueryException.class, () -> SearchCursor.decode("not base64!"));
+        assertThrows(InvalidQueryException.class, () -> SearchCursor.decode("bm8tc2VwYXJhdG9y"));
+    }
+}
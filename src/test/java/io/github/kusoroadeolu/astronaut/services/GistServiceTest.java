@@ -0,0 +1,269 @@
+package io.github.kusoroadeolu.astronaut.services;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.github.javaparser.JavaParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.kusoroadeolu.astronaut.ContentCache;
+import io.github.kusoroadeolu.astronaut.ContentStore;
+import io.github.kusoroadeolu.astronaut.SnippetCache;
+import io.github.kusoroadeolu.astronaut.dtos.GistFetch;
+import io.github.kusoroadeolu.astronaut.dtos.SnippetUpdateRequest;
+import io.github.kusoroadeolu.astronaut.entities.SnippetIndex;
+import io.github.kusoroadeolu.astronaut.search.SnippetSearchIndex;
+import io.github.kusoroadeolu.astronaut.visitors.ClassNameExtractor;
+import io.github.kusoroadeolu.astronaut.visitors.MetadataExtractor;
+import io.github.kusoroadeolu.astronaut.visitors.MethodNameExtractor;
+import io.github.kusoroadeolu.astronaut.visitors.VisitorOrchestrator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static io.github.kusoroadeolu.astronaut.CompressionUtils.compress;
+import static io.github.kusoroadeolu.astronaut.CompressionUtils.hash;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//Talks to a local stub of GitHub's paginated /gists endpoint and of /gists/{id}, which honours If-None-Match and If-Modified-Since
+class GistServiceTest {
+
+    private static final int GISTS = 237;
+    private static final int PER_PAGE = 100;
+    private static final String UPDATED_AT = "2025-01-01T00:00:00Z";
+    private static final String ETAG = "\"v1\"";
+    private static final String LAST_MODIFIED = "Wed, 01 Jan 2025 00:00:00 GMT";
+    private static final String CONTENT = "class Listed { void run() {} }";
+
+    private final List<String> events = new ArrayList<>();
+    private int gists = GISTS;
+    private HttpServer server;
+    private GistService gistService;
+
+    private Path dir;
+    private ParserPool parserPool;
+    private SnippetCache cache;
+    private IndexFileService indexFileService;
+    private SnippetCrudService crudService;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/gists", this::servePage);
+        server.createContext("/gists/", this::serveGist);
+        server.start();
+        gistService = new GistService(RestClient.builder().baseUrl(baseUrl()).build());
+    }
+
+    //Only the refresh and update tests need a snippet cache behind the gist service
+    @BeforeEach
+    void wireCrudService() throws IOException {
+        dir = Files.createTempDirectory("gist-service");
+        ContentStore store = new ContentStore(dir.resolve("blobs"));
+        cache = new SnippetCache(new SnippetSearchIndex(), store, new ContentCache(1 << 20));
+        indexFileService = new IndexFileService(JsonMapper.builder().findAndAddModules().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).build(), cache, store);
+        ReflectionTestUtils.setField(indexFileService, "indexPath", dir.resolve("index.json").toString());
+        ReflectionTestUtils.setField(indexFileService, "logPath", dir.resolve("index.json.log").toString());
+        ReflectionTestUtils.setField(indexFileService, "format", IndexFileService.IndexFormat.JSON);
+        ReflectionTestUtils.setField(indexFileService, "compactionMinRecords", Integer.MAX_VALUE);
+        ReflectionTestUtils.setField(indexFileService, "loadChunkSize", 1000);
+        indexFileService.load(cache::load);
+        cache.setReadiness(SnippetCache.Readiness.READY);
+
+        parserPool = new ParserPool(1, JavaParser::new);
+        SnippetParsingService parsingService = new SnippetParsingService(new VisitorOrchestrator(List.<MetadataExtractor<?>>of(new ClassNameExtractor(), new MethodNameExtractor())), parserPool);
+        ReflectionTestUtils.setField(parsingService, "memoSize", 16);
+        ReflectionTestUtils.setField(parsingService, "maxChars", 262144);
+        ReflectionTestUtils.setField(parsingService, "timeoutMs", 2000L);
+        crudService = new SnippetCrudService(new SnippetMapper(), new GistMapper(), gistService, cache, indexFileService, parsingService);
+    }
+
+    @AfterEach
+    void stopStub() throws Exception {
+        server.stop(0);
+        indexFileService.close();
+        parserPool.close();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) Files.delete(path);
+        }
+    }
+
+    @Test
+    void listGists_followsLinkHeadersAcrossEveryPage() {
+        List<String> ids = new ArrayList<>();
+        int listed = gistService.listGists(page -> page.forEach(gist -> ids.add(gist.id())));
+
+        assertEquals(GISTS, listed);
+        assertEquals(IntStream.range(0, GISTS).mapToObj("gist-%d"::formatted).toList(), ids);
+    }
+
+    @Test
+    void listGists_handsOverEachPageBeforeListingTheNext() {
+        gistService.listGists(page -> events.add("page of %d".formatted(page.size())));
+
+        assertEquals(List.of("GET page=1 per_page=100", "page of 100", "GET page=2 per_page=100", "page of 100",
+                "GET page=3 per_page=100", "page of 37"), events);
+    }
+
+    @Test
+    void getGist_readsA304ForTheValidatorsSentAsNotModified() {
+        GistFetch fetch = gistService.getGist("gist-0", ETAG, LAST_MODIFIED);
+
+        assertTrue(fetch.notModified());
+        assertNull(fetch.response());
+        assertEquals(ETAG, fetch.etag());
+        assertEquals(LAST_MODIFIED, fetch.lastModified());
+        assertEquals(List.of("GET /gists/gist-0 If-None-Match=%s If-Modified-Since=%s".formatted(ETAG, LAST_MODIFIED)), events);
+    }
+
+    @Test
+    void getGist_fetchesUnconditionallyWithoutValidators() {
+        GistFetch fetch = gistService.getGist("gist-0", null, null);
+
+        assertEquals(CONTENT, fetch.response().content());
+        assertEquals(ETAG, fetch.etag());
+        assertEquals(LAST_MODIFIED, fetch.lastModified());
+        assertEquals(List.of("GET /gists/gist-0 If-None-Match=null If-Modified-Since=null"), events);
+    }
+
+    @Test
+    void refreshGists_skipsReparsingAGistThatCameBackNotModified() {
+        gists = 1;
+        cache.add(snippet("2024-06-01T00:00:00Z", ETAG, LAST_MODIFIED));
+
+        crudService.refreshGists();
+
+        SnippetIndex refreshed = cache.get("gist-0");
+        assertEquals(Set.of("Seeded"), refreshed.getClassNames()); //Re-parsing would have found Listed
+        assertEquals(UPDATED_AT, refreshed.getUpdatedAt());
+        assertEquals(List.of("GET page=1 per_page=100", "GET /gists/gist-0 If-None-Match=%s If-Modified-Since=%s".formatted(ETAG, LAST_MODIFIED)), events);
+    }
+
+    @Test
+    void updateSnippet_recordsTheUpdatedAtSoRefreshDoesntFetchTheEditBack() {
+        gists = 1;
+        cache.add(snippet("2024-06-01T00:00:00Z", ETAG, LAST_MODIFIED));
+
+        crudService.updateSnippet("gist-0", new SnippetUpdateRequest("Edited", Set.of(), "class Edited { void run() {} }"));
+        SnippetIndex updated = cache.get("gist-0");
+        assertEquals(UPDATED_AT, updated.getUpdatedAt());
+        assertNull(updated.getEtag());
+        assertNull(updated.getLastModified());
+
+        events.clear();
+        crudService.refreshGists();
+        assertEquals(List.of("GET page=1 per_page=100"), events);
+        assertEquals(Set.of("Edited"), cache.get("gist-0").getClassNames());
+    }
+
+    @Test
+    void nextPage_readsOnlyTheNextRelation() {
+        String link = "<https://api.github.com/gists?per_page=100&page=3>; rel=\"next\", <https://api.github.com/gists?per_page=100&page=5>; rel=\"last\"";
+        assertEquals(URI.create("https://api.github.com/gists?per_page=100&page=3"), GistService.nextPage(link));
+        assertNull(GistService.nextPage("<https://api.github.com/gists?per_page=100&page=1>; rel=\"prev\""));
+        assertNull(GistService.nextPage(null));
+    }
+
+    private void servePage(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        int perPage = Integer.parseInt(param(query, "per_page", "30"));
+        int page = Integer.parseInt(param(query, "page", "1"));
+        events.add("GET page=%d per_page=%d".formatted(page, perPage));
+
+        int from = (page - 1) * perPage;
+        int to = Math.min(from + perPage, gists);
+        String body = IntStream.range(from, to)
+                .mapToObj(i -> """
+                        {"id":"gist-%d","description":"","files":{"G%d.java":{"filename":"G%d.java","language":"Java"}},\
+                        "created_at":"2025-01-01T00:00:00Z","updated_at":"2025-01-01T00:00:00Z"}""".formatted(i, i, i))
+                .collect(Collectors.joining(",", "[", "]"));
+        if (to < gists) {
+            exchange.getResponseHeaders().add("Link", "<%s/gists?per_page=%d&page=%d>; rel=\"next\", <%s/gists?per_page=%d&page=%d>; rel=\"last\""
+                    .formatted(baseUrl(), perPage, page + 1, baseUrl(), perPage, (gists + perPage - 1) / perPage));
+        }
+        sendJson(exchange, body);
+    }
+
+    //Every gist has the same content, a PATCH reports the updated_at the next listing does
+    private void serveGist(HttpExchange exchange) throws IOException {
+        String id = exchange.getRequestURI().getPath().substring("/gists/".length());
+        if (exchange.getRequestMethod().equals("PATCH")) {
+            events.add("PATCH /gists/%s".formatted(id));
+            sendJson(exchange, """
+                    {"id":"%s","updated_at":"%s"}""".formatted(id, UPDATED_AT));
+            return;
+        }
+
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        events.add("GET /gists/%s If-None-Match=%s If-Modified-Since=%s".formatted(id, ifNoneMatch, ifModifiedSince));
+        exchange.getResponseHeaders().add("ETag", ETAG);
+        exchange.getResponseHeaders().add("Last-Modified", LAST_MODIFIED);
+        if (ETAG.equals(ifNoneMatch) || LAST_MODIFIED.equals(ifModifiedSince)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        sendJson(exchange, """
+                {"id":"%s","files":{"G0.java":{"content":"%s"}}}""".formatted(id, CONTENT));
+    }
+
+    private static void sendJson(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    //gist-0 as cached from an earlier fetch of the gist, parsed by the current extractors
+    private static SnippetIndex snippet(String updatedAt, String etag, String lastModified) {
+        return SnippetIndex.builder()
+                .id("gist-0")
+                .fileName("G0.java")
+                .description("")
+                .language("Java")
+                .tags(new HashSet<>())
+                .classNames(new HashSet<>(Set.of("Seeded")))
+                .methodNames(new HashSet<>())
+                .contentBlob(ByteBuffer.wrap(compress(CONTENT)))
+                .contentHash(hash(CONTENT))
+                .extractorVersion(SnippetParsingService.EXTRACTOR_VERSION)
+                .createdAt(UPDATED_AT)
+                .updatedAt(updatedAt)
+                .etag(etag)
+                .lastModified(lastModified)
+                .build();
+    }
+
+    private static String param(String query, String name, String fallback) {
+        if (query == null) return fallback;
+        for (String pair : query.split("&")) {
+            if (pair.startsWith(name + "=")) return pair.substring(name.length() + 1);
+        }
+        return fallback;
+    }
+
+    private String baseUrl() {
+        return "http://127.0.0.1:%d".formatted(server.getAddress().getPort());
+    }
+}
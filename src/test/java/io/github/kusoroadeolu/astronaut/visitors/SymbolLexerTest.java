@@ -0,0 +1,166 @@
+package io.github.kusoroadeolu.astronaut.visitors;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SymbolLexerTest {
+
+    @Test
+    void extract_java_skipsRecordHeadersAndConstructors() {
+        assertSymbols("Java", """
+                public record Point(int x, int y) implements Comparable<Point> {
+                    public Point { }
+                    public int compareTo(Point other) { return 0; }
+                }
+                class Foo {
+                    private final int a;
+                    Foo(int a) throws IllegalStateException { this(a, 0); }
+                    Foo(int a, int b) { super(); this.a = a; }
+                    void run() { new Thread() { public void run() { } }.start(); }
+                }
+                """, Set.of("Point", "Foo"), Set.of("compareTo", "run"));
+    }
+
+    @Test
+    void extract_java_skipsCommentsAndStrings() {
+        assertSymbols("Java", """
+                // class Commented { void nope() {} }
+                /* void alsoNope() {} */
+                class Strings {
+                    String s = "void quoted() {}";
+                    String t = \"""
+                        class InText {}
+                        \""";
+                    char c = '{';
+                    void real() { if (s.isEmpty()) { } synchronized (this) { } }
+                }
+                """, Set.of("Strings"), Set.of("real"));
+    }
+
+    @Test
+    void extract_javascript_takesClassMethodsButNotConstructors() {
+        assertSymbols("JavaScript", """
+                class A {
+                  constructor() { this.x = 1; }
+                  render() { if (this.x) { helper(); } }
+                  static create(a, b) { return new A(); }
+                  async load() {}
+                }
+                function helper() { return { method() {} }; }
+                const arrow = (x) => x * 2;
+                const named = function () {};
+                """, Set.of("A"), Set.of("render", "create", "load", "helper", "arrow", "named"));
+    }
+
+    @Test
+    void extract_typescript_takesMethodsWithReturnTypes() {
+        assertSymbols("TypeScript", """
+                interface Shape { area(): number }
+                type Id = string;
+                export class TaskQueue<T> implements Shape {
+                  constructor(private readonly concurrency: number) {}
+                  get size(): number { return 0; }
+                  private async next(): Promise<void> { const x = cond ? a : b; }
+                  area(): number { return 1; }
+                }
+                const handler = async (req) => { };
+                let notFn = (1 + 2);
+                enum Color { Red }
+                """, Set.of("Shape", "Id", "TaskQueue", "Color"), Set.of("size", "next", "area", "handler"));
+    }
+
+    @Test
+    void extract_csharp_skipsConstructorInitializers() {
+        assertSymbols("C#", """
+                public class Repo : Base {
+                    public Repo(int a) : base(a) { }
+                    public void Save() { }
+                }
+                record Point(int X, int Y);
+                """, Set.of("Repo", "Point"), Set.of("Save"));
+    }
+
+    @Test
+    void extract_cpp_takesFreeAndMemberFunctions() {
+        assertSymbols("C++", """
+                #include <vector>
+                namespace ns {
+                template <typename T> class Stack { public: Stack() {} void push(const T& v) const { if (v) { } } };
+                enum class Color { Red };
+                struct Point { int x; };
+                int Stack::size() const noexcept { return 0; }
+                int main(int argc, char** argv) { std::vector<int> v(10); while (true) { } char c = '"'; }
+                }
+                """, Set.of("Stack", "Color", "Point"), Set.of("push", "size", "main"));
+    }
+
+    @Test
+    void extract_python_takesClassesAndDefs() {
+        assertSymbols("Python", """
+                # class NotMe
+                class Foo(Base):
+                    \"""def not_me(): docstring\"""
+                    def __init__(self, x):
+                        self.s = 'class Nope'
+                    async def run(self): pass
+                def top(): return {'a': 1}
+                """, Set.of("Foo"), Set.of("__init__", "run", "top"));
+    }
+
+    @Test
+    void extract_go_takesTypesFunctionsAndMethods() {
+        assertSymbols("Go", """
+                package main
+                type Server struct { handler func(int) string }
+                // func Commented() {}
+                func (s *Server) Start() error { go func() { x := `func Raw()` }(); return nil }
+                func Map[T any](xs []T) {}
+                func main() { fmt.Println("func nope()") }
+                """, Set.of("Server"), Set.of("Start", "Map", "main"));
+    }
+
+    @Test
+    void extract_rust_skipsLifetimes() {
+        assertSymbols("Rust", """
+                struct Foo<'a> { s: &'a str }
+                trait Shape { fn area(&self) -> f64; }
+                impl<'a> Foo<'a> { pub fn new(s: &'a str) -> Self { let c = '{'; Foo { s } } }
+                fn generic<T: Clone>(x: T) {}
+                """, Set.of("Foo", "Shape"), Set.of("area", "new", "generic"));
+    }
+
+    @Test
+    void extract_kotlinAndRuby_takeQualifiedNames() {
+        assertSymbols("Kotlin", """
+                data class User(val name: String)
+                object Registry { fun <T> get(): T = TODO() }
+                fun String.shout() = uppercase()
+                val s = \"""fun raw()\"""
+                """, Set.of("User", "Registry"), Set.of("get", "shout"));
+        assertSymbols("Ruby", """
+                module Util
+                  class Parser < Base
+                    def self.build; end
+                    def parse(x) "def nope" end
+                  end
+                end
+                """, Set.of("Util", "Parser"), Set.of("build", "parse"));
+    }
+
+    @Test
+    void forLanguage_isCaseInsensitiveAndNullForUnknownLanguages() {
+        assertEquals(LanguageGrammar.forLanguage("c++"), LanguageGrammar.forLanguage("C++"));
+        assertNull(LanguageGrammar.forLanguage("Markdown"));
+        assertNull(LanguageGrammar.forLanguage(null));
+    }
+
+    private static void assertSymbols(String language, String code, Set<String> typeNames, Set<String> functionNames) {
+        SymbolLexer.Symbols symbols = SymbolLexer.extract(code, LanguageGrammar.forLanguage(language));
+        assertEquals(typeNames, symbols.typeNames(), language + " types");
+        assertEquals(functionNames, symbols.functionNames(), language + " functions");
+    }
+}
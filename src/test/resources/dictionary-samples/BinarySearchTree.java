@@ -0,0 +1,65 @@
+package com.example.trees;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BinarySearchTree<T extends Comparable<T>> {
+
+    private Node<T> root;
+    private int size;
+
+    private static final class Node<T> {
+        private final T value;
+        private Node<T> left;
+        private Node<T> right;
+
+        Node(T value) {
+            this.value = value;
+        }
+    }
+
+    public boolean insert(T value) {
+        if (root == null) {
+            root = new Node<>(value);
+            size++;
+            return true;
+        }
+        Node<T> current = root;
+        while (true) {
+            int cmp = value.compareTo(current.value);
+            if (cmp == 0) return false;
+            if (cmp < 0) {
+                if (current.left == null) {
+                    current.left = new Node<>(value);
+                    size++;
+                    return true;
+                }
+                current = current.left;
+            } else {
+                if (current.right == null) {
+                    current.right = new Node<>(value);
+                    size++;
+                    return true;
+                }
+                current = current.right;
+            }
+        }
+    }
+
+    public List<T> inOrder() {
+        List<T> values = new ArrayList<>(size);
+        inOrder(root, values);
+        return values;
+    }
+
+    private void inOrder(Node<T> node, List<T> values) {
+        if (node == null) return;
+        inOrder(node.left, values);
+        values.add(node.value);
+        inOrder(node.right, values);
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+
+public class ConfigLoader {
+
+    private final Properties properties = new Properties();
+
+    public ConfigLoader(Path path) {
+        Objects.requireNonNull(path, "path");
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + path, e);
+        }
+    }
+
+    public Optional<String> get(String key) {
+        return Optional.ofNullable(properties.getProperty(key));
+    }
+
+    public int getInt(String key, int defaultValue) {
+        return get(key).map(Integer::parseInt).orElse(defaultValue);
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        return get(key).map(Boolean::parseBoolean).orElse(defaultValue);
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: ConfigLoader <file>");
+            System.exit(1);
+        }
+        ConfigLoader config = new ConfigLoader(Path.of(args[0]));
+        System.out.println("port = " + config.getInt("port", 8080));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.concurrent;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class Counter {
+
+    private final AtomicInteger count = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ConcurrentHashMap<String, Integer> counts = new ConcurrentHashMap<>();
+
+    public int increment() {
+        return count.incrementAndGet();
+    }
+
+    public void add(String key) {
+        counts.merge(key, 1, Integer::sum);
+    }
+
+    public int get() {
+        lock.lock();
+        try {
+            return count.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Counter counter = new Counter();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 1000; i++) {
+            executor.submit(counter::increment);
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        System.out.println("Count: " + counter.get());
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.graphs;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+public class Graph {
+
+    private final Map<Integer, List<Integer>> edges = new HashMap<>();
+
+    public void addEdge(int from, int to) {
+        edges.computeIfAbsent(from, k -> new ArrayList<>()).add(to);
+        edges.computeIfAbsent(to, k -> new ArrayList<>()).add(from);
+    }
+
+    public List<Integer> bfs(int start) {
+        List<Integer> order = new ArrayList<>();
+        Set<Integer> visited = new HashSet<>();
+        Queue<Integer> queue = new ArrayDeque<>();
+        queue.add(start);
+        visited.add(start);
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            order.add(node);
+            for (int next : edges.getOrDefault(node, List.of())) {
+                if (visited.add(next)) queue.add(next);
+            }
+        }
+        return order;
+    }
+
+    public List<Integer> dfs(int start) {
+        List<Integer> order = new ArrayList<>();
+        dfs(start, new HashSet<>(), order);
+        return order;
+    }
+
+    private void dfs(int node, Set<Integer> visited, List<Integer> order) {
+        if (!visited.add(node)) return;
+        order.add(node);
+        for (int next : edges.getOrDefault(node, List.of())) dfs(next, visited, order);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+public class LruCache<K, V> {
+
+    private final int capacity;
+    private final Map<K, V> entries;
+
+    public LruCache(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.capacity;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        Objects.requireNonNull(key, "key");
+        return entries.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        entries.put(key, value);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return "LruCache{" + "capacity=" + capacity + ", size=" + size() + '}';
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.model;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+public record Point(int x, int y) implements Comparable<Point> {
+
+    public static final Point ORIGIN = new Point(0, 0);
+
+    public Point {
+        if (x < 0 || y < 0) throw new IllegalArgumentException("Coordinates must not be negative");
+    }
+
+    public double distanceTo(Point other) {
+        Objects.requireNonNull(other, "other");
+        int dx = x - other.x;
+        int dy = y - other.y;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    public static List<Point> sorted(List<Point> points) {
+        return points.stream()
+                .sorted(Comparator.comparingInt(Point::x).thenComparingInt(Point::y))
+                .toList();
+    }
+
+    @Override
+    public int compareTo(Point other) {
+        return Comparator.comparingInt(Point::x).thenComparingInt(Point::y).compare(this, other);
+    }
+}
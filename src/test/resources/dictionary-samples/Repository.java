@@ -0,0 +1,41 @@
+package com.example.store;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+public class Repository<T> {
+
+    private final Map<String, T> items = new HashMap<>();
+
+    public Optional<T> findById(String id) {
+        Objects.requireNonNull(id, "id");
+        return Optional.ofNullable(items.get(id));
+    }
+
+    public List<T> findAll() {
+        return new ArrayList<>(items.values());
+    }
+
+    public void save(String id, T item) {
+        Objects.requireNonNull(id, "id");
+        Objects.requireNonNull(item, "item");
+        items.put(id, item);
+    }
+
+    public boolean delete(String id) {
+        return items.remove(id) != null;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    @Override
+    public String toString() {
+        return "Repository{" + "size=" + items.size() + '}';
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.http;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Objects;
+
+public class RetryingClient {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    public String get(String url) throws IOException, InterruptedException {
+        Objects.requireNonNull(url, "url");
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+        IOException last = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 200) return response.body();
+                last = new IOException("Unexpected status " + response.statusCode());
+            } catch (IOException e) {
+                last = e;
+            }
+            Thread.sleep(100L * attempt);
+        }
+        throw last;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        System.out.println(new RetryingClient().get(args[0]));
+    }
+}
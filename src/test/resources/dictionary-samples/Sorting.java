@@ -0,0 +1,54 @@
+package com.example.sorting;
+
+import java.util.Arrays;
+
+public final class Sorting {
+
+    private Sorting() {}
+
+    public static void quickSort(int[] array) {
+        quickSort(array, 0, array.length - 1);
+    }
+
+    private static void quickSort(int[] array, int low, int high) {
+        if (low >= high) return;
+        int pivot = partition(array, low, high);
+        quickSort(array, low, pivot - 1);
+        quickSort(array, pivot + 1, high);
+    }
+
+    private static int partition(int[] array, int low, int high) {
+        int pivot = array[high];
+        int i = low - 1;
+        for (int j = low; j < high; j++) {
+            if (array[j] <= pivot) swap(array, ++i, j);
+        }
+        swap(array, i + 1, high);
+        return i + 1;
+    }
+
+    public static void mergeSort(int[] array) {
+        if (array.length < 2) return;
+        int mid = array.length / 2;
+        int[] left = Arrays.copyOfRange(array, 0, mid);
+        int[] right = Arrays.copyOfRange(array, mid, array.length);
+        mergeSort(left);
+        mergeSort(right);
+        int i = 0, j = 0, k = 0;
+        while (i < left.length && j < right.length) array[k++] = left[i] <= right[j] ? left[i++] : right[j++];
+        while (i < left.length) array[k++] = left[i++];
+        while (j < right.length) array[k++] = right[j++];
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        int tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+
+    public static void main(String[] args) {
+        int[] array = {5, 3, 8, 1, 9, 2};
+        quickSort(array);
+        System.out.println(Arrays.toString(array));
+    }
+}
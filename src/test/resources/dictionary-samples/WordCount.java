@@ -0,0 +1,37 @@
+package com.example.streams;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class WordCount {
+
+    public static Map<String, Long> count(List<String> lines) {
+        return lines.stream()
+                .flatMap(line -> Arrays.stream(line.split("\\s+")))
+                .filter(word -> !word.isBlank())
+                .map(String::toLowerCase)
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+    }
+
+    public static List<String> top(Map<String, Long> counts, int limit) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    public static void main(String[] args) throws IOException {
+        try (Stream<String> lines = Files.lines(Path.of(args[0]))) {
+            Map<String, Long> counts = count(lines.toList());
+            top(counts, 10).forEach(System.out::println);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+export interface Task<T> {
+  id: string;
+  run(): Promise<T>;
+}
+
+export class TaskQueue<T> {
+  private readonly tasks: Task<T>[] = [];
+  private running = 0;
+
+  constructor(private readonly concurrency: number) {
+    if (concurrency <= 0) {
+      throw new Error("concurrency must be positive");
+    }
+  }
+
+  push(task: Task<T>): void {
+    this.tasks.push(task);
+    this.next();
+  }
+
+  get size(): number {
+    return this.tasks.length;
+  }
+
+  private async next(): Promise<void> {
+    if (this.running >= this.concurrency || this.tasks.length === 0) {
+      return;
+    }
+    const task = this.tasks.shift()!;
+    this.running++;
+    try {
+      const result = await task.run();
+      console.log(`Task ${task.id} finished`, result);
+    } catch (error) {
+      console.error(`Task ${task.id} failed`, error);
+    } finally {
+      this.running--;
+      this.next();
+    }
+  }
+}
+
+export function sleep(ms: number): Promise<void> {
+  return new Promise((resolve) => setTimeout(resolve, ms));
+}
@@ -0,0 +1,39 @@
+const http = require("http");
+const { URL } = require("url");
+
+const users = new Map();
+
+function sendJson(res, status, body) {
+  res.writeHead(status, { "Content-Type": "application/json" });
+  res.end(JSON.stringify(body));
+}
+
+async function readBody(req) {
+  const chunks = [];
+  for await (const chunk of req) {
+    chunks.push(chunk);
+  }
+  return JSON.parse(Buffer.concat(chunks).toString("utf8"));
+}
+
+const server = http.createServer(async (req, res) => {
+  const url = new URL(req.url, `http://${req.headers.host}`);
+  try {
+    if (req.method === "GET" && url.pathname === "/users") {
+      return sendJson(res, 200, [...users.values()]);
+    }
+    if (req.method === "POST" && url.pathname === "/users") {
+      const user = await readBody(req);
+      users.set(user.id, user);
+      return sendJson(res, 201, user);
+    }
+    sendJson(res, 404, { error: "Not found" });
+  } catch (error) {
+    console.error(error);
+    sendJson(res, 500, { error: "Internal server error" });
+  }
+});
+
+server.listen(process.env.PORT || 3000, () => {
+  console.log(`Listening on port ${server.address().port}`);
+});
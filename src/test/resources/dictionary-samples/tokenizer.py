@@ -0,0 +1,47 @@
+import re
+import sys
+from dataclasses import dataclass
+from typing import List, Optional
+
+
+@dataclass
+class Token:
+    kind: str
+    value: str
+    position: int
+
+
+class Tokenizer:
+    PATTERN = re.compile(r"\s*(?:(\d+)|(\w+)|(.))")
+
+    def __init__(self, text: str) -> None:
+        self.text = text
+        self.position = 0
+
+    def tokens(self) -> List[Token]:
+        result = []
+        for match in self.PATTERN.finditer(self.text):
+            number, name, symbol = match.groups()
+            if number is not None:
+                result.append(Token("number", number, match.start()))
+            elif name is not None:
+                result.append(Token("name", name, match.start()))
+            elif symbol is not None:
+                result.append(Token("symbol", symbol, match.start()))
+        return result
+
+    def first(self) -> Optional[Token]:
+        tokens = self.tokens()
+        return tokens[0] if tokens else None
+
+
+def main() -> None:
+    if len(sys.argv) < 2:
+        print("usage: tokenizer.py <text>")
+        sys.exit(1)
+    for token in Tokenizer(sys.argv[1]).tokens():
+        print(token)
+
+
+if __name__ == "__main__":
+    main()
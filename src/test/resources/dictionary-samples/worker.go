@@ -0,0 +1,70 @@
+package main
+
+import (
+	"context"
+	"errors"
+	"fmt"
+	"sync"
+	"time"
+)
+
+type Job struct {
+	ID      int
+	Payload string
+}
+
+type Result struct {
+	JobID int
+	Err   error
+}
+
+func worker(ctx context.Context, jobs <-chan Job, results chan<- Result, wg *sync.WaitGroup) {
+	defer wg.Done()
+	for {
+		select {
+		case <-ctx.Done():
+			return
+		case job, ok := <-jobs:
+			if !ok {
+				return
+			}
+			results <- Result{JobID: job.ID, Err: process(job)}
+		}
+	}
+}
+
+func process(job Job) error {
+	if job.Payload == "" {
+		return errors.New("empty payload")
+	}
+	time.Sleep(10 * time.Millisecond)
+	return nil
+}
+
+func main() {
+	ctx, cancel := context.WithTimeout(context.Background(), time.Second)
+	defer cancel()
+
+	jobs := make(chan Job)
+	results := make(chan Result)
+	var wg sync.WaitGroup
+	for i := 0; i < 4; i++ {
+		wg.Add(1)
+		go worker(ctx, jobs, results, &wg)
+	}
+	go func() {
+		for i := 0; i < 10; i++ {
+			jobs <- Job{ID: i, Payload: fmt.Sprintf("job-%d", i)}
+		}
+		close(jobs)
+	}()
+	go func() {
+		wg.Wait()
+		close(results)
+	}()
+	for result := range results {
+		if result.Err != nil {
+			fmt.Println("job", result.JobID, "failed:", result.Err)
+		}
+	}
+}